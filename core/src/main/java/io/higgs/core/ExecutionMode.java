@@ -0,0 +1,39 @@
+package io.higgs.core;
+
+/**
+ * Where an {@link InvokableMethod} is invoked
+ */
+public enum ExecutionMode {
+    /**
+     * Use whatever {@link ServerConfig#execution_mode} is set to. Only meaningful in {@link execution}
+     */
+    DEFAULT,
+    /**
+     * On the channel's event loop, the method must not block
+     */
+    INLINE,
+    /**
+     * On a bounded pool of worker threads, see {@link ServerConfig#worker_threads} and
+     * {@link ServerConfig#worker_queue_size}
+     */
+    POOL,
+    /**
+     * On a new virtual thread for each invocation. On JVMs without virtual threads {@link #POOL} is used
+     */
+    VIRTUAL;
+
+    /**
+     * @param name the case insensitive name of a mode
+     * @return the mode with the given name or {@link #INLINE} if name is null, empty or not a known mode
+     */
+    public static ExecutionMode parse(String name) {
+        if (name != null) {
+            for (ExecutionMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name.trim())) {
+                    return mode;
+                }
+            }
+        }
+        return INLINE;
+    }
+}
@@ -21,6 +21,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Queue;
@@ -42,6 +43,16 @@ public class HiggsServer {
      * A sorted set of methods. Methods are sorted in descending order of priority.
      */
     protected Queue<InvokableMethod> methods = new ConcurrentLinkedDeque<>();
+    /**
+     * An index of {@link #methods} used to find the methods which match a path
+     */
+    protected RouteIndex routes = new RouteIndex();
+    protected MethodExecutor executor;
+    /**
+     * Built from {@link #detectors} when the server starts and rebuilt if a factory is registered after that
+     */
+    protected volatile ProtocolDetectorChain detectorChain;
+    protected ResourceInstances instances = new ResourceInstances(this);
     protected Queue<ObjectFactory> factories = new ConcurrentLinkedDeque<>();
     protected EventLoopGroup bossGroup = new NioEventLoopGroup();
     protected EventLoopGroup workerGroup = new NioEventLoopGroup();
@@ -95,13 +106,15 @@ public class HiggsServer {
         if (channel != null) {
             throw new UnsupportedOperationException("Server already started");
         }
+        executor = new MethodExecutor(config);
+        detectorChain = new ProtocolDetectorChain(detectors);
         try {
             bootstrap.group(bossGroup, workerGroup)
                     .channel(NioServerSocketChannel.class)
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         public void initChannel(SocketChannel ch) throws Exception {
-                            ch.pipeline().addLast(new Transducer(detectSsl, detectGzip, detectors,
-                                    methods));
+                            ch.pipeline().addLast(new Transducer(detectSsl, detectGzip, detectorChain,
+                                    methods, routes, executor));
                         }
                     });
             // Bind and start to accept incoming connections.
@@ -114,6 +127,12 @@ public class HiggsServer {
     public void stop() {
         bossGroup.shutdownGracefully();
         workerGroup.shutdownGracefully();
+        if (executor != null) {
+            executor.shutdown();
+        }
+        for (ProtocolConfiguration protocol : protocolConfigurations) {
+            protocol.stop();
+        }
     }
 
     /**
@@ -162,6 +181,9 @@ public class HiggsServer {
      */
     public void registerProtocolDetectorFactory(ProtocolDetectorFactory factory) {
         detectors.add(factory);
+        if (detectorChain != null) {
+            detectorChain = new ProtocolDetectorChain(detectors);
+        }
     }
 
     /**
@@ -185,6 +207,57 @@ public class HiggsServer {
         }
     }
 
+    /**
+     * Register the object factories and classes listed in the {@link RouteManifest}s on the class path.
+     * These are generated at compile time by adding the processor module as a provided dependency, which avoids
+     * scanning every jar and directory on the class path at start up.
+     * <p/>
+     * The manifest only lists classes with the {@link method} annotation, if
+     * {@link #setOnlyRegisterAnnotatedMethods(boolean)} is false register packages instead.
+     *
+     * @param fallbackPackages packages to scan, as with {@link #registerPackage(String)}, if no manifest is found
+     * @return true if a manifest was found, false if the fallback packages were scanned instead
+     */
+    public boolean registerFromManifest(String... fallbackPackages) {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = getClass().getClassLoader();
+        }
+        RouteManifest manifest = RouteManifest.load(loader);
+        if (manifest == null) {
+            log.info(String.format("No %s found, scanning %s", RouteManifest.LOCATION,
+                    Arrays.toString(fallbackPackages)));
+            for (String name : fallbackPackages) {
+                registerPackage(name);
+            }
+            return false;
+        }
+        //factories first, method processors are given the factories when a class is registered
+        for (String name : manifest.factories()) {
+            Class<?> c = loadManifestClass(loader, name);
+            if (c != null) {
+                registerObjectFactoryOrClass(c);
+            }
+        }
+        for (String name : manifest.classes()) {
+            Class<?> c = loadManifestClass(loader, name);
+            if (c != null && !ObjectFactory.class.isAssignableFrom(c)) {
+                registerClass(c);
+            }
+        }
+        return true;
+    }
+
+    private Class<?> loadManifestClass(ClassLoader loader, String name) {
+        try {
+            return Class.forName(name, true, loader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.warn(String.format("Unable to load %s listed in %s, is the manifest out of date?", name,
+                    RouteManifest.LOCATION), e);
+            return null;
+        }
+    }
+
     private void registerObjectFactoryOrClass(Class<?> c) {
         if (ObjectFactory.class.isAssignableFrom(c)) {
             registerObjectFactory((Class<ObjectFactory>) c);
@@ -212,6 +285,7 @@ public class HiggsServer {
             throw new IllegalArgumentException("Cannot register a null object factories");
         }
         factories.add(factory);
+        instances.factoriesChanged();
     }
 
     /**
@@ -225,6 +299,7 @@ public class HiggsServer {
                 factories.remove(f);
             }
         }
+        instances.factoriesChanged();
     }
 
     public void registerClass(Class<?> c) {
@@ -242,8 +317,10 @@ public class HiggsServer {
         for (InvokableMethod method : methods) {
             if (method.klass().equals(klass)) {
                 methods.remove(method);
+                routes.remove(method);
             }
         }
+        instances.remove(klass);
     }
 
     /**
@@ -275,6 +352,7 @@ public class HiggsServer {
                         method.getName()));
                 return;
             }
+            im.setInstances(instances);
             if (registerAllMethods) {
                 boolean hasListener = method.isAnnotationPresent(methodClass);
                 //opt out if the annotation is present and optout is set to true
@@ -282,6 +360,7 @@ public class HiggsServer {
                 if (!optout) {
                     //register all methods is true, the method hasn't been opted out
                     methods.add(im);
+                    routes.add(im);
                     im.registered();
                 }
             } else {
@@ -290,6 +369,7 @@ public class HiggsServer {
                     //if we're not registering all methods, AND this method has the annotation
                     //AND optout is not set to true
                     if (methods.add(im)) {
+                        routes.add(im);
                         im.registered();
                     } else {
                         throw new UnsupportedOperationException(String.format("Unable to add invokable method \n%s" +
@@ -300,6 +380,27 @@ public class HiggsServer {
         }
     }
 
+    /**
+     * @return the index of all registered methods
+     */
+    public RouteIndex getRoutes() {
+        return routes;
+    }
+
+    /**
+     * @return the supplier of the instances registered methods are invoked on
+     */
+    public ResourceInstances getInstances() {
+        return instances;
+    }
+
+    /**
+     * @return the executor methods are invoked with or null if the server hasn't been started
+     */
+    public MethodExecutor getExecutor() {
+        return executor;
+    }
+
     public <C extends ServerConfig> C getConfig() {
         return (C) config;
     }
@@ -0,0 +1,30 @@
+package io.higgs.core;
+
+/**
+ * How instances of a resource class are created to service requests
+ */
+public enum InstanceMode {
+    /**
+     * Decided by {@link ServerConfig#instance_per_request} and {@link ServerConfig#instance_pool_size}.
+     * Only meaningful in {@link instances}
+     */
+    DEFAULT,
+    /**
+     * A new instance is created, injected and initialised for every request
+     */
+    PER_REQUEST,
+    /**
+     * A single instance is created, injected and initialised the first time it's needed and then used for every
+     * request, concurrently. The class must be thread safe. Request scoped dependencies, the channel, context,
+     * message etc., aren't injected into its fields, methods must accept them as parameters
+     */
+    SINGLETON,
+    /**
+     * Instances are taken from a bounded pool, each is only used by one request at a time.
+     * An instance is initialised once when it's created, null fields are injected and the request scoped ones
+     * replaced each time it's taken from the pool and its public no-args reset() method, if it has one, is
+     * invoked when it's returned.
+     * If the pool is empty a new instance is created, if it's full returned instances are discarded
+     */
+    POOLED
+}
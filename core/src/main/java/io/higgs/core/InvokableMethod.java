@@ -2,6 +2,9 @@ package io.higgs.core;
 
 import io.higgs.core.reflect.dependency.DependencyProvider;
 import io.higgs.core.reflect.dependency.Injector;
+import io.higgs.core.reflect.invoke.Instantiator;
+import io.higgs.core.reflect.invoke.Invoker;
+import io.higgs.core.reflect.invoke.Invokers;
 import io.netty.channel.ChannelHandlerContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,13 +18,30 @@ import java.util.Queue;
  * @author Courtney Robinson <courtney@crlog.info>
  */
 public abstract class InvokableMethod implements Sortable<InvokableMethod> {
+    protected static final Object[] NO_ARGS = new Object[0];
     protected Logger log = LoggerFactory.getLogger(getClass());
     protected final Method classMethod;
     protected final Queue<ObjectFactory> factories;
     protected final Class<?> klass;
     protected String[] pathAttributes;
     protected String path;
+    /**
+     * The parsed form of {@link #path}, re-parsed only if {@link #path} changes
+     */
+    private ResourcePath resourcePath;
     protected Attr attrs = new Attr();
+    /**
+     * Call sites for the method, its class' init hook (if any) and no-args constructor, resolved once here
+     * and shared by every instance for the same method or class
+     */
+    protected final Invoker invoker;
+    protected final Invoker initInvoker;
+    protected final Instantiator instantiator;
+    protected final ExecutionMode executionMode;
+    /**
+     * Supplies the instances this method is invoked on, if null a new instance is created for each invocation
+     */
+    protected ResourceInstances instances;
 
     public InvokableMethod(Queue<ObjectFactory> factories, Class<?> klass, Method classMethod) {
         if (factories == null || klass == null || classMethod == null) {
@@ -31,6 +51,20 @@ public abstract class InvokableMethod implements Sortable<InvokableMethod> {
         this.factories = factories;
         this.classMethod = classMethod;
         parsePath();
+        invoker = Invokers.invoker(classMethod);
+        initInvoker = Invokers.init(klass);
+        instantiator = Invokers.instantiator(klass);
+        executionMode = findExecutionMode();
+    }
+
+    private ExecutionMode findExecutionMode() {
+        if (classMethod.isAnnotationPresent(execution.class)) {
+            return classMethod.getAnnotation(execution.class).value();
+        }
+        if (klass.isAnnotationPresent(execution.class)) {
+            return klass.getAnnotation(execution.class).value();
+        }
+        return ExecutionMode.DEFAULT;
     }
 
     protected void parsePath() {
@@ -69,8 +103,16 @@ public abstract class InvokableMethod implements Sortable<InvokableMethod> {
         }
     }
 
+    /**
+     * @return the parsed, immutable, form of this method's path. The same instance is returned on each call
+     */
     public ResourcePath path() {
-        return new ResourcePath(path);
+        ResourcePath p = resourcePath;
+        if (p == null || !p.getUri().equals(path)) {
+            p = new ResourcePath(path);
+            resourcePath = p;
+        }
+        return p;
     }
 
     public String rawPath() {
@@ -87,32 +129,59 @@ public abstract class InvokableMethod implements Sortable<InvokableMethod> {
      */
     public Object invoke(ChannelHandlerContext ctx, String path, Object msg, Object[] params)
             throws InvocationTargetException, IllegalAccessException, InstantiationException {
-        Object instance = createInstance();
-
         DependencyProvider deps = DependencyProvider.from(ctx, ctx.channel(), ctx.executor(), msg);
-        injectFields(instance, deps);
-
-        Object[] depParams = injectParameters(ctx, msg, params, instance, deps);
+        ResourceInstances supplier = instances;
+        Object instance;
+        if (supplier == null) {
+            instance = createInstance();
+            injectFields(instance, deps);
+            init(instance);
+        } else {
+            instance = supplier.acquire(this, deps);
+        }
         try {
-            Method init = instance.getClass().getMethod("init");
-            init.invoke(instance);
-        } catch (InvocationTargetException | NoSuchMethodException ignored) {
-            //empty catch not allowed  by style settings so do return
-            return classMethod.invoke(instance, depParams);
+            Object[] depParams = injectParameters(ctx, msg, params, instance, deps);
+            return invoker.invoke(instance, depParams);
+        } finally {
+            if (supplier != null) {
+                supplier.release(this, instance);
+            }
+        }
+    }
+
+    /**
+     * Invoke the public, no-args init() method of the instance's class if it has one
+     *
+     * @param instance the instance to initialise
+     */
+    protected void init(Object instance) {
+        if (initInvoker != null) {
+            try {
+                initInvoker.invoke(instance, NO_ARGS);
+            } catch (InvocationTargetException e) {
+                log.debug(String.format("init() failed on %s", klass.getName()), e.getCause());
+            }
         }
-        return classMethod.invoke(instance, depParams);
     }
 
     protected Object createInstance() throws InstantiationException, IllegalAccessException {
         Object instance = null;
-        for (ObjectFactory factory : factories) {
-            if (factory.canCreateInstanceOf(klass)) {
-                instance = factory.newInstance(klass);
-                break;
+        ObjectFactory factory = null;
+        if (instances != null) {
+            factory = instances.factoryFor(klass);
+        } else {
+            for (ObjectFactory f : factories) {
+                if (f.canCreateInstanceOf(klass)) {
+                    factory = f;
+                    break;
+                }
             }
         }
+        if (factory != null) {
+            instance = factory.newInstance(klass);
+        }
         if (instance == null) {
-            instance = klass.newInstance();
+            instance = instantiator != null ? instantiator.newInstance() : klass.newInstance();
         }
         return instance;
     }
@@ -128,6 +197,14 @@ public abstract class InvokableMethod implements Sortable<InvokableMethod> {
         Injector.inject(instance, deps);
     }
 
+    /**
+     * Inject an instance which has already been used by another request, fields the request's dependencies supply
+     * are replaced and any other null fields are injected
+     */
+    protected void refreshFields(Object instance, DependencyProvider deps) {
+        Injector.inject(instance, deps, true);
+    }
+
     /**
      * @return The set of attributes set on this method or an empty array
      */
@@ -165,6 +242,30 @@ public abstract class InvokableMethod implements Sortable<InvokableMethod> {
         return 0;
     }
 
+    /**
+     * @param instances supplies the instances this method is invoked on according to its class' {@link InstanceMode}
+     */
+    public void setInstances(ResourceInstances instances) {
+        this.instances = instances;
+    }
+
+    /**
+     * @return the mode set by an {@link execution} annotation on the method or its class, or
+     *         {@link ExecutionMode#DEFAULT} if neither is annotated
+     */
+    public ExecutionMode executionMode() {
+        return executionMode;
+    }
+
+    /**
+     * @return true if this method only matches paths with the same structure as its {@link #path()}, this allows
+     *         it to be added to a {@link RouteIndex}. Methods which override
+     *         {@link #matches(String, ChannelHandlerContext, Object)} to match paths some other way should return false
+     */
+    public boolean isIndexable() {
+        return true;
+    }
+
     /**
      * Invoked when a method has been registered
      */
@@ -0,0 +1,19 @@
+package io.higgs.core;
+
+/**
+ * A {@link ProtocolDetector} for a protocol whose messages always start with one of a known set of byte sequences.
+ * {@link ProtocolDetectorChain} only offers data to these detectors if it starts with the first byte of one of their
+ * prefixes, and only once there are at least {@link #bytesRequired()} bytes available.
+ */
+public interface MagicProtocolDetector extends ProtocolDetector {
+    /**
+     * @return the byte sequences a message of this protocol can start with, none may be empty
+     */
+    byte[][] prefixes();
+
+    /**
+     * @return the number of bytes {@link #detected(io.netty.channel.ChannelHandlerContext, io.netty.buffer.ByteBuf)}
+     *         needs to make a decision, at least 1
+     */
+    int bytesRequired();
+}
@@ -2,6 +2,7 @@ package io.higgs.core;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.concurrent.EventExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,8 +16,17 @@ import java.util.Queue;
  * @author Courtney Robinson <courtney@crlog.info>
  */
 public abstract class MessageHandler<C extends ServerConfig, T> extends SimpleChannelInboundHandler<T> {
+    /**
+     * Used by handlers which weren't given an executor, invokes methods inline unless they're annotated otherwise
+     */
+    private static final MethodExecutor DEFAULT_EXECUTOR = new MethodExecutor(ExecutionMode.INLINE, 0, 1024);
 
     protected Queue<InvokableMethod> methods;
+    protected RouteIndex routes;
+    /**
+     * Decides which thread methods are invoked on
+     */
+    protected MethodExecutor executor;
     protected Logger log = LoggerFactory.getLogger(getClass());
     protected final C config;
 
@@ -28,6 +38,45 @@ public abstract class MessageHandler<C extends ServerConfig, T> extends SimpleCh
         this.methods = methods;
     }
 
+    /**
+     * @param routes an index of the methods set with {@link #setMethods(java.util.Queue)}, if set it is used to find
+     *               methods instead of checking every method
+     */
+    public void setRoutes(RouteIndex routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * @param executor the executor shared by all the server's channels
+     */
+    public void setExecutor(MethodExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return the executor methods are invoked with, never null
+     */
+    public MethodExecutor getExecutor() {
+        return executor == null ? DEFAULT_EXECUTOR : executor;
+    }
+
+    /**
+     * Run a task on the channel's event loop, immediately if the current thread is the event loop.
+     * Anything which writes a response or touches the handler's state after a method has been invoked
+     * on another thread must go through here.
+     *
+     * @param ctx  the channel's context
+     * @param task the task to run
+     */
+    protected void onEventLoop(ChannelHandlerContext ctx, Runnable task) {
+        EventExecutor loop = ctx.executor();
+        if (loop.inEventLoop()) {
+            task.run();
+        } else {
+            loop.execute(task);
+        }
+    }
+
     /**
      * Finds a method which matches the given path AND is an instance of the provided method class
      *
@@ -39,7 +88,7 @@ public abstract class MessageHandler<C extends ServerConfig, T> extends SimpleCh
      */
     public <M extends InvokableMethod> M findMethod(String path, ChannelHandlerContext ctx,
                                                     Object msg, Class<M> methodClass) {
-        List<InvokableMethod> sortedMethods = new FixedSortedList<>(methods);
+        List<InvokableMethod> sortedMethods = routes == null ? new FixedSortedList<>(methods) : routes.find(path);
         for (InvokableMethod method : sortedMethods) {
             if (method.matches(path, ctx, msg)) {
                 if (method.getClass().isAssignableFrom(methodClass)) {
@@ -0,0 +1,148 @@
+package io.higgs.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs method invocations according to their {@link ExecutionMode}. One of these is shared by all the channels of a
+ * {@link HiggsServer}. The worker pool and virtual thread executor are only created if a method uses them.
+ * <p/>
+ * This only decides which thread a method runs on, {@link MessageHandler}s are responsible for moving back to the
+ * channel's event loop to write the response.
+ */
+public class MethodExecutor {
+    private static final Logger log = LoggerFactory.getLogger(MethodExecutor.class);
+    private final ExecutionMode defaultMode;
+    private final int threads;
+    private final int queueSize;
+    private volatile ExecutorService pool;
+    private volatile ExecutorService virtual;
+    private volatile boolean virtualUnavailable;
+
+    public MethodExecutor(ServerConfig config) {
+        this(ExecutionMode.parse(config.execution_mode), config.worker_threads, config.worker_queue_size);
+    }
+
+    /**
+     * @param defaultMode the mode for methods with no {@link execution} annotation
+     * @param threads     the number of threads in the worker pool, if less than 1 twice the number of processors
+     * @param queueSize   the number of invocations which can be waiting for a worker before new ones are rejected
+     */
+    public MethodExecutor(ExecutionMode defaultMode, int threads, int queueSize) {
+        this.defaultMode = defaultMode == null || defaultMode == ExecutionMode.DEFAULT ? ExecutionMode.INLINE
+                : defaultMode;
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() * 2 : threads;
+        this.queueSize = Math.max(1, queueSize);
+    }
+
+    /**
+     * @param method the method to be invoked
+     * @return the mode the method will be invoked in, never {@link ExecutionMode#DEFAULT}
+     */
+    public ExecutionMode modeFor(InvokableMethod method) {
+        ExecutionMode mode = method.executionMode();
+        return mode == ExecutionMode.DEFAULT ? defaultMode : mode;
+    }
+
+    /**
+     * @param method the method to be invoked
+     * @return true if the method is invoked on the calling thread
+     */
+    public boolean isInline(InvokableMethod method) {
+        return modeFor(method) == ExecutionMode.INLINE;
+    }
+
+    /**
+     * Run a task which invokes the given method in the method's execution mode
+     *
+     * @param method the method the task invokes
+     * @param task   the task
+     * @throws RejectedExecutionException if the worker pool's queue is full or the executor has been shutdown
+     */
+    public void execute(InvokableMethod method, Runnable task) {
+        switch (modeFor(method)) {
+            case POOL:
+                pool().execute(task);
+                break;
+            case VIRTUAL:
+                virtual().execute(task);
+                break;
+            default:
+                task.run();
+        }
+    }
+
+    private ExecutorService pool() {
+        ExecutorService p = pool;
+        if (p == null) {
+            synchronized (this) {
+                p = pool;
+                if (p == null) {
+                    p = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<Runnable>(queueSize), new WorkerThreadFactory(),
+                            new ThreadPoolExecutor.AbortPolicy());
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    private ExecutorService virtual() {
+        ExecutorService v = virtual;
+        if (v == null) {
+            if (virtualUnavailable) {
+                return pool();
+            }
+            synchronized (this) {
+                v = virtual;
+                if (v == null) {
+                    try {
+                        //Java 21+, looked up reflectively so we can still run on older JVMs
+                        Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                        v = (ExecutorService) m.invoke(null);
+                        virtual = v;
+                    } catch (ReflectiveOperationException | RuntimeException e) {
+                        log.warn("Virtual threads are not supported by this JVM, using the worker pool instead");
+                        virtualUnavailable = true;
+                        return pool();
+                    }
+                }
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Stop accepting new invocations, those already queued or running are allowed to finish
+     */
+    public synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (virtual != null) {
+            virtual.shutdown();
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "higgs-worker-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
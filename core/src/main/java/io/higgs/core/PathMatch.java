@@ -0,0 +1,63 @@
+package io.higgs.core;
+
+/**
+ * The result of successfully matching a path against a {@link ResourcePath}.
+ * Holds the values extracted from the path for each of the resource path's components, the resource path
+ * itself is immutable and shared so one of these is created for each match.
+ */
+public class PathMatch {
+    private final ResourcePath path;
+    private final String[] values;
+
+    PathMatch(ResourcePath path, String[] values) {
+        this.path = path;
+        this.values = values;
+    }
+
+    /**
+     * @return the resource path which was matched
+     */
+    public ResourcePath path() {
+        return path;
+    }
+
+    /**
+     * @param name the name of a component in the resource path e.g. "id" given /user/{id:[0-9]+}
+     * @return the value extracted for the named component or null if the resource path has no such component
+     */
+    public String get(String name) {
+        int idx = path.indexOf(name);
+        return idx == -1 ? null : values[idx];
+    }
+
+    /**
+     * @param idx the index of a component in the resource path
+     * @return the value extracted for the component at the given index
+     * @throws ArrayIndexOutOfBoundsException if idx is less than 0 or >= {@link ResourcePath#size()}
+     */
+    public String get(int idx) {
+        return values[idx];
+    }
+
+    /**
+     * @return the number of values in this match, always the same as the resource path's size
+     */
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                b.append(", ");
+            }
+            b.append(values[i]);
+        }
+        return "PathMatch{" +
+                "uri='" + path.getUri() + '\'' +
+                ", values=[" + b + "]" +
+                '}';
+    }
+}
@@ -14,4 +14,10 @@ public interface ProtocolConfiguration {
      * @param server the server instance this protocol is being registered to
      */
     void initialise(HiggsServer server);
+
+    /**
+     * Invoked when the server is stopped, anything {@link #initialise(HiggsServer)} started or opened should be
+     * stopped or closed
+     */
+    void stop();
 }
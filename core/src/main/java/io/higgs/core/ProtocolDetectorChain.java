@@ -0,0 +1,91 @@
+package io.higgs.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The {@link ProtocolDetector}s of every registered {@link ProtocolDetectorFactory}, created once and shared by every
+ * channel. Detectors are kept in a table indexed by the first byte of a connection's data. Each entry holds, in
+ * priority order, the {@link MagicProtocolDetector}s with a prefix starting with that byte and every other detector,
+ * so only detectors which could possibly match are tried.
+ */
+public class ProtocolDetectorChain {
+    /**
+     * Returned by {@link #detect(ChannelHandlerContext, ByteBuf)} when a detector needs more data to decide
+     */
+    public static final ProtocolDetector NEED_MORE_DATA = new ProtocolDetector() {
+        @Override
+        public boolean detected(ChannelHandlerContext ctx, ByteBuf in) {
+            return false;
+        }
+
+        @Override
+        public MessageHandler<?, ?> setupPipeline(ChannelPipeline p, ChannelHandlerContext ctx) {
+            throw new UnsupportedOperationException();
+        }
+    };
+    private final ProtocolDetector[][] table = new ProtocolDetector[256][];
+
+    /**
+     * @param factories the factories to create detectors from, {@link ProtocolDetectorFactory#newProtocolDetector()}
+     *                  is called once for each
+     */
+    public ProtocolDetectorChain(Collection<ProtocolDetectorFactory> factories) {
+        List<ProtocolDetector> detectors = new ArrayList<>();
+        for (ProtocolDetectorFactory factory : new FixedSortedList<>(factories)) {
+            ProtocolDetector detector = factory.newProtocolDetector();
+            if (detector != null) {
+                detectors.add(detector);
+            }
+        }
+        for (int b = 0; b < table.length; b++) {
+            List<ProtocolDetector> candidates = new ArrayList<>();
+            for (ProtocolDetector detector : detectors) {
+                if (!(detector instanceof MagicProtocolDetector) || startsWith((MagicProtocolDetector) detector, b)) {
+                    candidates.add(detector);
+                }
+            }
+            table[b] = candidates.toArray(new ProtocolDetector[candidates.size()]);
+        }
+    }
+
+    private static boolean startsWith(MagicProtocolDetector detector, int b) {
+        for (byte[] prefix : detector.prefixes()) {
+            if (prefix.length > 0 && (prefix[0] & 0xFF) == b) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the detector for the protocol of the data available, in doesn't have to contain any data
+     *
+     * @param ctx the channel's context
+     * @param in  the data received so far, the reader index isn't changed
+     * @return the detector which matched, {@link #NEED_MORE_DATA} if a detector can't decide until more data arrives
+     *         or null if the protocol is unknown
+     */
+    public ProtocolDetector detect(ChannelHandlerContext ctx, ByteBuf in) {
+        if (!in.isReadable()) {
+            return NEED_MORE_DATA;
+        }
+        int readable = in.readableBytes();
+        for (ProtocolDetector detector : table[in.getUnsignedByte(in.readerIndex())]) {
+            if (detector instanceof MagicProtocolDetector
+                    && readable < ((MagicProtocolDetector) detector).bytesRequired()) {
+                //a higher priority detector may match so lower priority ones can't be tried yet
+                return NEED_MORE_DATA;
+            }
+            if (detector.detected(ctx, in)) {
+                return detector;
+            }
+        }
+        return null;
+    }
+}
@@ -1,19 +1,22 @@
 package io.higgs.core;
 
 /**
- * To support shared state encoders, decoders and {@link ProtocolDetector}s a {@link ProtocolDetectorFactory}
- * is used as a factories to create new instances of each for every channel.
+ * Creates the {@link ProtocolDetector} for a protocol, see {@link ProtocolDetectorChain}
  *
  * @author Courtney Robinson <courtney@crlog.info>
  */
 public interface ProtocolDetectorFactory extends Sortable<ProtocolDetectorFactory> {
 
     /**
-     * Provide a new instance of the {@link ProtocolDetector} this codec represents
-     * Very important that a new instance is provided each time. If the same one is returned it will be used by multiple
-     * threads.
+     * Provide the {@link ProtocolDetector} this codec represents.
+     * This is called once when the server starts, or when a factory is registered after that, and the detector
+     * returned is shared by every channel so it must be stateless. Any per channel state belongs in the handlers
+     * added by {@link ProtocolDetector#setupPipeline(io.netty.channel.ChannelPipeline,
+     * io.netty.channel.ChannelHandlerContext)}.
+     * Detectors which can identify their protocol from the first few bytes should implement
+     * {@link MagicProtocolDetector}
      *
-     * @return A new ProtocolDetector
+     * @return A ProtocolDetector
      */
     ProtocolDetector newProtocolDetector();
 
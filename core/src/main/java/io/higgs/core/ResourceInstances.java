@@ -0,0 +1,217 @@
+package io.higgs.core;
+
+import io.higgs.core.reflect.dependency.DependencyProvider;
+import io.higgs.core.reflect.dependency.Injector;
+import io.higgs.core.reflect.invoke.Invoker;
+import io.higgs.core.reflect.invoke.Invokers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Supplies the instances of resource classes that methods are invoked on, according to each class'
+ * {@link InstanceMode}. Each server has one of these, shared by all of its methods so that every method of a class
+ * uses the same singleton or pool.
+ * <p/>
+ * Also caches which {@link ObjectFactory}, if any, creates instances of each class so the factories don't have to be
+ * checked on each request. {@link #factoriesChanged()} must be called when a factory is added or removed.
+ */
+public class ResourceInstances {
+    private static final Logger log = LoggerFactory.getLogger(ResourceInstances.class);
+    private static final ObjectFactory NO_FACTORY = new ObjectFactory(null) {
+        @Override
+        public Object newInstance(Class<?> klass) {
+            return null;
+        }
+
+        @Override
+        public boolean canCreateInstanceOf(Class<?> klass) {
+            return false;
+        }
+    };
+    /**
+     * Singletons are injected with this so they only get the registered providers' dependencies
+     */
+    private static final DependencyProvider NO_REQUEST = DependencyProvider.from();
+    private final HiggsServer server;
+    private final ConcurrentHashMap<Class<?>, ObjectFactory> factoryCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, ClassInstances> classes = new ConcurrentHashMap<>();
+
+    /**
+     * @param server the server whose factories are used, its config is only read when a class is first used
+     */
+    public ResourceInstances(HiggsServer server) {
+        this.server = server;
+    }
+
+    /**
+     * @param klass the class to get a factory for
+     * @return the first registered factory which can create instances of the class or null if none can
+     */
+    public ObjectFactory factoryFor(Class<?> klass) {
+        ObjectFactory factory = factoryCache.get(klass);
+        if (factory == null) {
+            factory = NO_FACTORY;
+            for (ObjectFactory f : server.getFactories()) {
+                if (f.canCreateInstanceOf(klass)) {
+                    factory = f;
+                    break;
+                }
+            }
+            factoryCache.put(klass, factory);
+        }
+        return factory == NO_FACTORY ? null : factory;
+    }
+
+    /**
+     * Forget which factory creates each class, called when a factory is registered or removed
+     */
+    public void factoriesChanged() {
+        factoryCache.clear();
+    }
+
+    /**
+     * Discard any singleton or pooled instances of the class, called when a class is de-registered
+     *
+     * @param klass the class
+     */
+    public void remove(Class<?> klass) {
+        classes.remove(klass);
+        factoryCache.remove(klass);
+    }
+
+    /**
+     * @param klass the class
+     * @return the mode instances of the class are created in, never {@link InstanceMode#DEFAULT}
+     */
+    public InstanceMode modeFor(Class<?> klass) {
+        return of(klass).mode;
+    }
+
+    /**
+     * Get an instance, ready to be invoked, for a method's class.
+     * Every instance acquired must be given back with {@link #release(InvokableMethod, Object)}
+     *
+     * @param method the method which is about to be invoked
+     * @param deps   the dependencies available to the current request
+     * @return the instance to invoke the method on
+     */
+    public Object acquire(InvokableMethod method, DependencyProvider deps)
+            throws InstantiationException, IllegalAccessException {
+        ClassInstances c = of(method.klass());
+        switch (c.mode) {
+            case SINGLETON:
+                Object singleton = c.singleton;
+                if (singleton == null) {
+                    synchronized (c) {
+                        singleton = c.singleton;
+                        if (singleton == null) {
+                            singleton = method.createInstance();
+                            //the request's ctx, channel, message etc. would be seen by every later request
+                            List<String> scoped = Injector.suppliedBy(method.klass(), deps);
+                            if (!scoped.isEmpty()) {
+                                log.warn(String.format("%s is a singleton, its fields %s are request scoped and " +
+                                        "won't be injected, accept them as method parameters instead",
+                                        method.klass().getName(), scoped));
+                            }
+                            method.injectFields(singleton, NO_REQUEST);
+                            method.init(singleton);
+                            c.singleton = singleton;
+                        }
+                    }
+                }
+                return singleton;
+            case POOLED:
+                Object instance = c.pool.poll();
+                if (instance == null) {
+                    instance = method.createInstance();
+                    method.injectFields(instance, deps);
+                    method.init(instance);
+                } else {
+                    method.refreshFields(instance, deps);
+                }
+                return instance;
+            default:
+                Object perRequest = method.createInstance();
+                method.injectFields(perRequest, deps);
+                method.init(perRequest);
+                return perRequest;
+        }
+    }
+
+    /**
+     * Give back an instance obtained from {@link #acquire(InvokableMethod, DependencyProvider)} once the method
+     * has returned
+     *
+     * @param method   the method which was invoked
+     * @param instance the instance it was invoked on
+     */
+    public void release(InvokableMethod method, Object instance) {
+        if (instance == null) {
+            return;
+        }
+        ClassInstances c = of(method.klass());
+        if (c.mode != InstanceMode.POOLED) {
+            return;
+        }
+        if (c.reset != null) {
+            try {
+                c.reset.invoke(instance, InvokableMethod.NO_ARGS);
+            } catch (InvocationTargetException e) {
+                //don't return an instance which may be in a bad state
+                log.warn(String.format("reset() failed on %s, instance discarded", method.klass().getName()),
+                        e.getCause());
+                return;
+            }
+        }
+        c.pool.offer(instance);
+    }
+
+    private ClassInstances of(Class<?> klass) {
+        ClassInstances c = classes.get(klass);
+        if (c == null) {
+            c = new ClassInstances(klass);
+            ClassInstances existing = classes.putIfAbsent(klass, c);
+            if (existing != null) {
+                c = existing;
+            }
+        }
+        return c;
+    }
+
+    private class ClassInstances {
+        private final InstanceMode mode;
+        private final ArrayBlockingQueue<Object> pool;
+        private final Invoker reset;
+        private volatile Object singleton;
+
+        ClassInstances(Class<?> klass) {
+            InstanceMode m = InstanceMode.DEFAULT;
+            ServerConfig config = server.getConfig();
+            int size = 0;
+            if (klass.isAnnotationPresent(instances.class)) {
+                instances a = klass.getAnnotation(instances.class);
+                m = a.value();
+                size = a.poolSize();
+            }
+            if (m == InstanceMode.DEFAULT) {
+                if (!config.instance_per_request) {
+                    m = InstanceMode.SINGLETON;
+                } else {
+                    m = config.instance_pool_size > 0 ? InstanceMode.POOLED : InstanceMode.PER_REQUEST;
+                }
+            }
+            if (size < 1) {
+                size = config.instance_pool_size > 0 ? config.instance_pool_size
+                        : Runtime.getRuntime().availableProcessors() * 2;
+            }
+            mode = m;
+            pool = m == InstanceMode.POOLED ? new ArrayBlockingQueue<Object>(size) : null;
+            reset = m == InstanceMode.POOLED ? Invokers.reset(klass) : null;
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package io.higgs.core;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -20,39 +21,48 @@ import java.util.regex.Pattern;
  * A parameterized component cannot be mixed with a string component. e.g. the following is invalid
  * /test/abc{param}/123 but the following is valid
  * /test/{param:abc}/123
+ * <p/>
+ * A resource path is immutable, it is parsed once and can be shared by any number of threads. The values
+ * extracted when a path matches are returned in a {@link PathMatch} by {@link #match(String)}.
  *
  * @author Courtney Robinson <courtney@crlog.info>
  */
 public class ResourcePath {
     private final String uri;
-    private Component[] components;
-    private Map<String, Component> namedComponents = new HashMap<>();
+    private final Component[] components;
+    private final Map<String, Integer> namedComponents = new HashMap<>();
 
     public ResourcePath(final String uri) {
         this.uri = uri;
-        parsePath();
+        this.components = parsePath();
     }
 
     public String getUri() {
         return uri;
     }
 
+    /**
+     * @return a copy of this path's components
+     */
     public Component[] getComponents() {
-        return components;
+        return components.clone();
+    }
+
+    /**
+     * @return the number of components in this path
+     */
+    public int size() {
+        return components.length;
     }
 
-    private void parsePath() {
+    private Component[] parsePath() {
         String[] parts = uri.split("/");
-        components = new Component[parts.length];
-        int index = 0;
+        List<Component> list = new ArrayList<>(parts.length);
         for (String part : parts) {
             if (part.isEmpty()) {
-                //shrink array by 1
-                components = Arrays.copyOf(components, components.length - 1, Component[].class);
                 continue;
             }
-            Component component = new Component();
-            component.setComponentValue(part);
+            Component component;
             if (part.startsWith("{") && part.endsWith("}")) {
                 int colonIndex = part.indexOf(':');
                 if (colonIndex != -1) {
@@ -60,19 +70,30 @@ public class ResourcePath {
                     String name = part.substring(1, colonIndex);
                     //pattern is everything from : to } (exclusive of both)
                     String pattern = part.substring(colonIndex + 1, part.length() - 1);
-                    component.setName(name);
-                    component.setPattern(pattern);
+                    component = new Component(part, name, pattern);
                 } else {
                     //no colon the whole thing is a parameter name (minus the {})
                     String name = part.substring(1, part.length() - 1);
-                    component.setName(name);
-                    component.setPattern("[^/]+?");
+                    component = new Component(part, name, "[^/]+?");
                 }
-                namedComponents.put(component.getName(), component);
+                namedComponents.put(component.getName(), list.size());
+            } else {
+                component = new Component(part, null, null);
             }
-            components[index] = component;
-            index++;
+            list.add(component);
         }
+        return list.toArray(new Component[list.size()]);
+    }
+
+    /**
+     * Checks if the given path matches this resource path.
+     * Equivalent to {@code match(path) != null} see {@link #match(String)}
+     *
+     * @param path the name/path/url to match against
+     * @return true if the path matches
+     */
+    public boolean matches(String path) {
+        return match(path) != null;
     }
 
     /**
@@ -88,14 +109,14 @@ public class ResourcePath {
      * included in the comparison. e.g. /home/me/edit?id=123 will become  /home/me/edit
      *
      * @param path the name/path/url to match against
-     * @return
+     * @return the values extracted from the path or null if the path doesn't match
      */
-    public boolean matches(String path) {
+    public PathMatch match(String path) {
         path = path.trim();
         //since we split on / a root path would create an empty component array
         // so do a manual check against the raw string uri that created this path
         if (path.equalsIgnoreCase("/") && uri.equalsIgnoreCase("/")) {
-            return true;
+            return new PathMatch(this, new String[components.length]);
         }
         int qIndex = path.indexOf('?');
         if (qIndex != -1) {
@@ -116,9 +137,10 @@ public class ResourcePath {
             }
         }
         if (components.length != size) {
-            return false;
+            return null;
         }
-        //iterate over the parts, as soon as the first component doesn't match return false
+        String[] values = new String[components.length];
+        //iterate over the parts, as soon as the first component doesn't match return null
         int i = 0;
         for (int j = 0; j < parts.length; j++) {
             //skip, we set it to null above
@@ -130,36 +152,40 @@ public class ResourcePath {
             if (!pathComponent.isPattern()) {
                 //if its not a pattern the strings must be equal
                 if (!component.equalsIgnoreCase(pathComponent.getComponentValue())) {
-                    return false;
+                    return null;
                 }
             } else {
                 //if its a pattern the string must match
                 if (!pathComponent.matches(component)) {
-                    return false;
+                    return null;
                 }
             }
             //if we get here then the path component matched the component value
-            //so the path's runtime component value should be the extracted component
-            pathComponent.setRuntimeValue(component);
+            values[i] = component;
             i++;
         }
         //if we get here all the components matched
-        return true;
+        return new PathMatch(this, values);
     }
 
     /**
      * Gets a named component from the resource's path or null if not found
      *
      * @param name the name of the component to return
-     * @return
+     * @return the component or null
      */
     public Component getComponent(final String name) {
-        for (Component component : components) {
-            if (component != null && component.isNamed() && name.equals(component.getName())) {
-                return component;
-            }
-        }
-        return null;
+        int idx = indexOf(name);
+        return idx == -1 ? null : components[idx];
+    }
+
+    /**
+     * @param name the name of a component
+     * @return the index of the named component or -1 if this path doesn't have a component with that name
+     */
+    public int indexOf(final String name) {
+        Integer idx = name == null ? null : namedComponents.get(name);
+        return idx == null ? -1 : idx;
     }
 
     @Override
@@ -174,70 +200,42 @@ public class ResourcePath {
     }
 
     public static class Component {
-        private String componentValue;
-        private boolean isPattern;
-        private String name;
-        private String runtimeValue;
-        private Pattern pattern;
-
-        /**
-         * Check if this component is named or not
-         *
-         * @return
-         */
-        public boolean isNamed() {
-            return name != null;
-        }
+        private final String componentValue;
+        private final String name;
+        private final Pattern pattern;
 
         /**
-         * Get the value that was parsed  out of the uri comparison which resulted in this instance
-         *
-         * @return
+         * @param value   the raw value of the component as it appears in the path
+         * @param name    the name of the component or null if not named
+         * @param pattern the regex the component must match or null if it must match value exactly
          */
-        public String getRuntimeValue() {
-            return runtimeValue;
+        public Component(String value, String name, String pattern) {
+            this.componentValue = value;
+            this.name = name;
+            this.pattern = pattern == null ? null : Pattern.compile(pattern, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
         }
 
         /**
-         * Set the runtime component value of a path component. This value goes with {@link #getName()} to
-         * make a key value pair. Wherever {@link #getName()} is used as a parameter the value set with
-         * this method will be injected in its place
+         * Check if this component is named or not
          *
-         * @param runtimeValue
+         * @return true if named
          */
-        public void setRuntimeValue(final String runtimeValue) {
-            this.runtimeValue = runtimeValue;
+        public boolean isNamed() {
+            return name != null;
         }
 
         public String getComponentValue() {
             return componentValue;
         }
 
-        public void setComponentValue(final String value) {
-            this.componentValue = value;
-        }
-
         public boolean isPattern() {
-            return isPattern;
-        }
-
-        public void setPattern(final boolean pattern) {
-            isPattern = pattern;
+            return pattern != null;
         }
 
         public String getName() {
             return name;
         }
 
-        public void setName(final String name) {
-            this.name = name;
-        }
-
-        public void setPattern(final String pattern) {
-            this.pattern = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-            setPattern(true);
-        }
-
         public Pattern getPattern() {
             return pattern;
         }
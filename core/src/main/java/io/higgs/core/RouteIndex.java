@@ -0,0 +1,226 @@
+package io.higgs.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A segment trie of every registered {@link InvokableMethod}, built as methods are registered so that
+ * finding the methods which could match a path doesn't require checking every registered method.
+ * <p/>
+ * Literal path components are keyed (case insensitively) in a map at each node, pattern components
+ * i.e. {name:regex} are kept in a list ordered by the highest priority of the methods below them.
+ * Looking up a path walks the trie in O(path depth), only evaluating a regex at pattern nodes.
+ * <p/>
+ * The methods returned by {@link #find(String)} are only candidates, the path's structure matches but
+ * {@link InvokableMethod#matches(String, io.netty.channel.ChannelHandlerContext, Object)} must still be called
+ * since methods can have other conditions (HTTP verbs, media types etc).
+ * Methods which return false from {@link InvokableMethod#isIndexable()} are returned for every path.
+ */
+public class RouteIndex {
+    private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            int p = b.method.priority() - a.method.priority();
+            if (p != 0) {
+                return p;
+            }
+            return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+        }
+    };
+    private final Node root = new Node(null);
+    private final List<Entry> unindexed = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Add a method to the index
+     *
+     * @param method the method to add
+     */
+    public synchronized void add(InvokableMethod method) {
+        if (method == null) {
+            throw new IllegalArgumentException("Cannot index a null method");
+        }
+        Entry entry = new Entry(method, sequence.getAndIncrement());
+        if (!method.isIndexable()) {
+            unindexed.add(entry);
+            return;
+        }
+        Node node = root;
+        for (ResourcePath.Component component : method.path().getComponents()) {
+            node.maxPriority = Math.max(node.maxPriority, method.priority());
+            node = component.isPattern() ? node.pattern(component) : node.literal(component.getComponentValue());
+        }
+        node.maxPriority = Math.max(node.maxPriority, method.priority());
+        node.methods.add(entry);
+        node.sortPatterns();
+    }
+
+    /**
+     * Remove all methods from the index which are equal to the method given
+     *
+     * @param method the method to remove
+     */
+    public synchronized void remove(InvokableMethod method) {
+        if (method == null) {
+            return;
+        }
+        removeFrom(unindexed, method);
+        removeFrom(root, method);
+    }
+
+    private void removeFrom(Node node, InvokableMethod method) {
+        removeFrom(node.methods, method);
+        for (Node child : node.literals.values()) {
+            removeFrom(child, method);
+        }
+        for (Node child : node.patterns) {
+            removeFrom(child, method);
+        }
+    }
+
+    private void removeFrom(List<Entry> entries, InvokableMethod method) {
+        for (Entry e : entries) {
+            if (e.method.equals(method)) {
+                entries.remove(e);
+            }
+        }
+    }
+
+    /**
+     * Find all methods whose path could match the given path.
+     * Like {@link ResourcePath#matches(String)} any query string is ignored as are empty components
+     *
+     * @param path the path to match
+     * @return the candidate methods in descending order of priority, methods with the same priority are
+     *         returned in the order they were registered
+     */
+    public List<InvokableMethod> find(String path) {
+        List<Entry> found = new ArrayList<>(unindexed);
+        if (path != null) {
+            String[] parts = split(path);
+            collect(root, parts, 0, found);
+        }
+        if (found.size() > 1) {
+            Collections.sort(found, ORDER);
+        }
+        List<InvokableMethod> methods = new ArrayList<>(found.size());
+        for (Entry e : found) {
+            methods.add(e.method);
+        }
+        return methods;
+    }
+
+    private void collect(Node node, String[] parts, int idx, List<Entry> found) {
+        if (idx == parts.length) {
+            found.addAll(node.methods);
+            return;
+        }
+        String part = parts[idx];
+        Node literal = node.literals.get(part.toLowerCase(Locale.ENGLISH));
+        if (literal != null) {
+            collect(literal, parts, idx + 1, found);
+        }
+        for (Node pattern : node.patterns) {
+            if (pattern.component.matches(part)) {
+                collect(pattern, parts, idx + 1, found);
+            }
+        }
+    }
+
+    /**
+     * Splits a path into its non-empty components, the same way {@link ResourcePath#matches(String)} does
+     */
+    private String[] split(String path) {
+        path = path.trim();
+        int qIndex = path.indexOf('?');
+        if (qIndex != -1) {
+            path = path.substring(0, qIndex);
+        }
+        String[] parts = path.split("/");
+        int size = 0;
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i].trim();
+            if (!part.isEmpty()) {
+                parts[size++] = parts[i];
+            }
+        }
+        String[] nonEmpty = new String[size];
+        System.arraycopy(parts, 0, nonEmpty, 0, size);
+        return nonEmpty;
+    }
+
+    private static class Entry {
+        private final InvokableMethod method;
+        private final long sequence;
+
+        Entry(InvokableMethod method, long sequence) {
+            this.method = method;
+            this.sequence = sequence;
+        }
+    }
+
+    private static class Node {
+        private final ConcurrentHashMap<String, Node> literals = new ConcurrentHashMap<>();
+        //replaced rather than modified so lookups never see a partially sorted list
+        private volatile List<Node> patterns = Collections.emptyList();
+        private final List<Entry> methods = new CopyOnWriteArrayList<>();
+        private final ResourcePath.Component component;
+        private Node parent;
+        private int maxPriority = Integer.MIN_VALUE;
+
+        Node(ResourcePath.Component component) {
+            this.component = component;
+        }
+
+        Node literal(String value) {
+            String key = value.toLowerCase(Locale.ENGLISH);
+            Node node = literals.get(key);
+            if (node == null) {
+                node = new Node(null);
+                node.parent = this;
+                literals.put(key, node);
+            }
+            return node;
+        }
+
+        Node pattern(ResourcePath.Component c) {
+            for (Node node : patterns) {
+                if (node.component.getPattern().pattern().equals(c.getPattern().pattern())) {
+                    return node;
+                }
+            }
+            Node node = new Node(c);
+            node.parent = this;
+            List<Node> copy = new ArrayList<>(patterns);
+            copy.add(node);
+            patterns = copy;
+            return node;
+        }
+
+        /**
+         * Re-orders pattern children, all the way up to the root, so that those leading to higher priority
+         * methods are tried first
+         */
+        void sortPatterns() {
+            if (patterns.size() > 1) {
+                List<Node> sorted = new ArrayList<>(patterns);
+                Collections.sort(sorted, new Comparator<Node>() {
+                    @Override
+                    public int compare(Node a, Node b) {
+                        return a.maxPriority > b.maxPriority ? -1 : (a.maxPriority == b.maxPriority ? 0 : 1);
+                    }
+                });
+                patterns = sorted;
+            }
+            if (parent != null) {
+                parent.sortPatterns();
+            }
+        }
+    }
+}
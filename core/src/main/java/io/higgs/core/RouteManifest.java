@@ -0,0 +1,184 @@
+package io.higgs.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The resources listed in every {@link #LOCATION} file on the class path. These are written at compile time by
+ * the io.higgs.processor.RouteManifestProcessor annotation processor from the processor module, see it for
+ * the file's format. Lets {@link HiggsServer#registerFromManifest(String...)} register resources without
+ * scanning the class path.
+ */
+public class RouteManifest {
+    public static final String LOCATION = "META-INF/higgs/routes";
+    private static final Logger log = LoggerFactory.getLogger(RouteManifest.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private final Set<String> classes = new LinkedHashSet<>();
+    private final Set<String> factories = new LinkedHashSet<>();
+    private final Map<String, Route> routes = new LinkedHashMap<>();
+    private int files;
+
+    /**
+     * Read all manifests visible to the given class loader
+     *
+     * @param loader the loader to get the manifests and later the classes listed in them from
+     * @return the combined manifest or null if there are no manifests on the class path
+     */
+    public static RouteManifest load(ClassLoader loader) {
+        RouteManifest manifest = new RouteManifest();
+        try {
+            Enumeration<URL> urls = loader.getResources(LOCATION);
+            while (urls.hasMoreElements()) {
+                manifest.read(urls.nextElement());
+            }
+        } catch (IOException e) {
+            log.warn(String.format("Unable to list %s resources", LOCATION), e);
+        }
+        return manifest.files == 0 ? null : manifest;
+    }
+
+    protected void read(URL url) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), UTF8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                //-1 keeps trailing empty fields
+                String[] parts = line.split("\t", -1);
+                switch (parts[0]) {
+                    case "class":
+                        classes.add(parts[1]);
+                        break;
+                    case "factory":
+                        factories.add(parts[1]);
+                        break;
+                    case "method":
+                        if (parts.length >= 7) {
+                            Route route = new Route(parts);
+                            routes.put(route.toString(), route);
+                            break;
+                        }
+                        //fall through, malformed
+                    default:
+                        log.warn(String.format("Ignoring unknown entry in %s : %s", url, line));
+                }
+            }
+            files++;
+        } catch (IOException e) {
+            log.warn(String.format("Unable to read route manifest %s", url), e);
+        }
+    }
+
+    /**
+     * @return the names of all classes with methods to register
+     */
+    public Set<String> classes() {
+        return Collections.unmodifiableSet(classes);
+    }
+
+    /**
+     * @return the names of all {@link ObjectFactory} sub classes
+     */
+    public Set<String> factories() {
+        return Collections.unmodifiableSet(factories);
+    }
+
+    /**
+     * @return every method annotated with {@link method}, in the order of the manifests
+     */
+    public List<Route> routes() {
+        return new ArrayList<>(routes.values());
+    }
+
+    public static class Route {
+        private final String klass;
+        private final String name;
+        private final String[] parameterTypes;
+        private final String path;
+        private final String[] verbs;
+        private final String[][] parameterAnnotations;
+
+        Route(String[] parts) {
+            klass = parts[1];
+            name = parts[2];
+            parameterTypes = split(parts[3], ",");
+            path = parts[4];
+            verbs = split(parts[5], ",");
+            String[] params = parts[6].split(";", -1);
+            parameterAnnotations = new String[parameterTypes.length][];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterAnnotations[i] = i < params.length ? split(params[i], ",") : new String[0];
+            }
+        }
+
+        private static String[] split(String s, String separator) {
+            return s.isEmpty() ? new String[0] : s.split(separator);
+        }
+
+        /**
+         * @return the binary name of the class the method was found in
+         */
+        public String klass() {
+            return klass;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return the erased type names of the method's parameters, arrays are written in source form e.g. int[]
+         */
+        public String[] parameterTypes() {
+            return parameterTypes;
+        }
+
+        /**
+         * @return the value of the method's {@link method} annotation, without any class level prefix
+         */
+        public String path() {
+            return path;
+        }
+
+        /**
+         * @return the simple names of the HTTP verb annotations on the method e.g. GET, POST
+         */
+        public String[] verbs() {
+            return verbs;
+        }
+
+        /**
+         * @return for each parameter the annotations on it written as SimpleName or SimpleName(value)
+         */
+        public String[][] parameterAnnotations() {
+            return parameterAnnotations;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder b = new StringBuilder(klass).append('#').append(name).append('(');
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    b.append(',');
+                }
+                b.append(parameterTypes[i]);
+            }
+            return b.append(')').toString();
+        }
+    }
+}
@@ -8,8 +8,14 @@ public class ServerConfig {
      * If true then a new instance of resource classes are  created for every request the class matches
      * if false then a single instance is used to service every request.
      * useful for concurrency issues
+     * Can be overridden for a class with {@link instances}
      */
     public boolean instance_per_request = true;
+    /**
+     * If greater than 0 and {@link #instance_per_request} is true, instances are taken from a pool of up to this
+     * many per class instead of being created for every request, see {@link InstanceMode#POOLED}
+     */
+    public int instance_pool_size;
     /**
      * the port the server binds to
      */
@@ -30,4 +36,19 @@ public class ServerConfig {
     public boolean add_default_resource_filter = true;
     public boolean add_static_resource_filter = true;
     public boolean log_requests = true;
+    /**
+     * Where methods are invoked unless overridden with {@link execution}, one of
+     * "inline" - on the channel's event loop, methods must not block
+     * "pool" - on a bounded pool of worker threads
+     * "virtual" - on a virtual thread per invocation, if the JVM doesn't support them "pool" is used
+     */
+    public String execution_mode = "inline";
+    /**
+     * the number of threads in the worker pool, if less than 1 twice the number of available processors is used
+     */
+    public int worker_threads;
+    /**
+     * the number of invocations which can be waiting for a worker thread, once full requests are rejected
+     */
+    public int worker_queue_size = 1024;
 }
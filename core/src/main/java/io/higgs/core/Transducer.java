@@ -13,8 +13,8 @@ import io.netty.handler.ssl.SslHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 
@@ -26,15 +26,27 @@ public class Transducer extends ByteToMessageDecoder {
     private Logger log = LoggerFactory.getLogger(getClass());
     private boolean detectSsl;
     private boolean detectGzip;
-    private final Queue<ProtocolDetectorFactory> factories;
+    private final ProtocolDetectorChain detectors;
     private final Queue<InvokableMethod> methods;
+    private final RouteIndex routes;
+    private final MethodExecutor executor;
 
     public Transducer(boolean detectSsl, boolean detectGzip, Queue<ProtocolDetectorFactory> f,
                       Queue<InvokableMethod> methods) {
+        this(detectSsl, detectGzip, new ProtocolDetectorChain(f), methods, null, null);
+    }
+
+    /**
+     * @param detectors the server's detectors, created once and shared by every channel
+     */
+    public Transducer(boolean detectSsl, boolean detectGzip, ProtocolDetectorChain detectors,
+                      Queue<InvokableMethod> methods, RouteIndex routes, MethodExecutor executor) {
         this.detectSsl = detectSsl;
         this.detectGzip = detectGzip;
-        factories = f;
+        this.detectors = detectors;
         this.methods = methods;
+        this.routes = routes;
+        this.executor = executor;
     }
 
     @Override
@@ -50,31 +62,36 @@ public class Transducer extends ByteToMessageDecoder {
 
             if (SslHandler.isEncrypted(in)) {
                 enableSsl(ctx);
+                //the rest of the data belongs to the handlers just added
+                return;
             }
         }
         if (detectGzip) {
+            if (in.readableBytes() < 2) {
+                return;
+            }
             final int magic1 = in.getUnsignedByte(in.readerIndex());
             final int magic2 = in.getUnsignedByte(in.readerIndex() + 1);
             if (magic1 == 31 && magic2 == 139) {
                 enableGzip(ctx);
+                //the rest of the data belongs to the handlers just added
+                return;
             }
         }
-        List<ProtocolDetectorFactory> protocols = new FixedSortedList<>(factories);
-        Iterator<ProtocolDetectorFactory> it = protocols.iterator();
-        boolean detectedProtocol = false;
-        while (it.hasNext()) {
-            ProtocolDetectorFactory codec = it.next();
-            ProtocolDetector detector = codec.newProtocolDetector();
-            if (detector.detected(ctx, in)) {
-                detectedProtocol = true;
-                ChannelPipeline p = ctx.pipeline();
-                MessageHandler<?, ?> handler = detector.setupPipeline(p, ctx);
-                handler.setMethods(methods);
-                p.remove(this);
-                break;
-            }
+        ProtocolDetector detector = detectors.detect(ctx, in);
+        if (detector == ProtocolDetectorChain.NEED_MORE_DATA) {
+            return;
         }
-        if (!detectedProtocol) {
+        if (detector != null) {
+            ChannelPipeline p = ctx.pipeline();
+            MessageHandler<?, ?> handler = detector.setupPipeline(p, ctx);
+            handler.setMethods(methods);
+            handler.setRoutes(routes);
+            if (executor != null) {
+                handler.setExecutor(executor);
+            }
+            p.remove(this);
+        } else {
             log.warn("Unknown protocol. Discarding data and closing connection");
             //unknown protocol
             in.clear();
@@ -85,11 +102,18 @@ public class Transducer extends ByteToMessageDecoder {
     private void enableSsl(ChannelHandlerContext ctx) {
         ChannelPipeline p = ctx.pipeline();
 
-        SSLEngine engine = SSLContextFactory.getSSLSocket(SSLConfigFactory.sslConfiguration).createSSLEngine();
+        //shared by every connection so the stores are only loaded once and sessions can be resumed
+        SSLContext context = SSLContextFactory.getServerContext(SSLConfigFactory.sslConfiguration);
+        if (context == null) {
+            log.warn("SSL detected but no SSL context is available. Closing connection");
+            ctx.close();
+            return;
+        }
+        SSLEngine engine = context.createSSLEngine();
         engine.setUseClientMode(false);
 
         p.addLast("ssl", new SslHandler(engine));
-        p.addLast("unificationA", new Transducer(false, detectGzip, factories, methods));
+        p.addLast("unificationA", new Transducer(false, detectGzip, detectors, methods, routes, executor));
         p.remove(this);
     }
 
@@ -97,7 +121,7 @@ public class Transducer extends ByteToMessageDecoder {
         ChannelPipeline p = ctx.pipeline();
         p.addLast("gzipdeflater", ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP));
         p.addLast("gzipinflater", ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
-        p.addLast("unificationB", new Transducer(detectSsl, false, factories, methods));
+        p.addLast("unificationB", new Transducer(detectSsl, false, detectors, methods, routes, executor));
         p.remove(this);
     }
 
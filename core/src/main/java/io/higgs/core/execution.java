@@ -0,0 +1,18 @@
+package io.higgs.core;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides {@link ServerConfig#execution_mode} for a method, or for every method in a class.
+ * An annotation on a method takes precedence over one on its class.
+ * e.g. a method which makes a blocking database call should be moved off the event loop with
+ * {@code @execution(ExecutionMode.POOL)}
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.TYPE })
+public @interface execution {
+    ExecutionMode value();
+}
@@ -0,0 +1,22 @@
+package io.higgs.core;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides {@link ServerConfig#instance_per_request} for a resource class
+ * e.g. {@code @instances(InstanceMode.SINGLETON)} for a stateless class
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface instances {
+    InstanceMode value();
+
+    /**
+     * @return the maximum number of idle instances kept when the mode is {@link InstanceMode#POOLED},
+     *         if less than 1 {@link ServerConfig#instance_pool_size} is used
+     */
+    int poolSize() default 0;
+}
@@ -18,7 +18,8 @@ public class CachedPath {
         if (className.startsWith(separator)) {
             className = className.substring(1);  //replace start / first
         }
-        className = className.replace(separator.charAt(0), '.'); //now replace all other slashes
+        //jar entries and indexed directories always use /
+        className = className.replace('/', '.').replace(separator.charAt(0), '.'); //now replace all other slashes
 
         if (className.endsWith(".class")) {
             className = className.substring(0, className.length() - 6);
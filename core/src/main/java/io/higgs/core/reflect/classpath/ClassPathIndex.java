@@ -0,0 +1,320 @@
+package io.higgs.core.reflect.classpath;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Lists the resources in each class path element matching a pattern.
+ * <p/>
+ * Elements are scanned in parallel on a fork join pool, directories are split further with a task per sub
+ * directory. Jars are opened once through {@link #jar(String)} and kept open so that reading their central
+ * directory here and loading classes from them later share the same handle.
+ * <p/>
+ * What was found in each jar is saved to an index file, by default in java.io.tmpdir, with the jar's path, size
+ * and last modified time. On the next start jars which haven't changed aren't opened to be scanned at all.
+ * Directories are always scanned since a change deep within one doesn't change its size or modified time.
+ * Set the system property {@link #INDEX_FILE_PROPERTY} to the file to use, or to "none" to not save an index.
+ */
+public class ClassPathIndex {
+    public static final String INDEX_FILE_PROPERTY = "higgs.classpath.index";
+    private static final int VERSION = 1;
+    private static final Logger log = LoggerFactory.getLogger(ClassPathIndex.class);
+    private static final ConcurrentHashMap<String, ZipFile> JARS = new ConcurrentHashMap<>();
+    private final Pattern pattern;
+    private final File indexFile;
+
+    /**
+     * @param pattern   only resources whose path within their element matches are indexed
+     * @param indexFile the file to save the index of jars to and load it from or null to always scan
+     */
+    public ClassPathIndex(Pattern pattern, File indexFile) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern cannot be null");
+        }
+        this.pattern = pattern;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * @return the index file to use for the given class path and pattern, as configured by the
+     *         {@link #INDEX_FILE_PROPERTY} system property
+     */
+    public static File defaultIndexFile(String classPath, Pattern pattern) {
+        String configured = System.getProperty(INDEX_FILE_PROPERTY);
+        if ("none".equalsIgnoreCase(configured)) {
+            return null;
+        }
+        if (configured != null && !configured.isEmpty()) {
+            return new File(configured);
+        }
+        //different applications and patterns mustn't share a file
+        String key = Integer.toHexString((classPath + '\n' + pattern.pattern()).hashCode());
+        return new File(System.getProperty("java.io.tmpdir"), "higgs-classpath-" + key + ".idx");
+    }
+
+    /**
+     * @param path the path to a jar or zip file
+     * @return a handle to the file, opened on first use and shared by all callers
+     * @throws IOException if the file can't be opened
+     */
+    public static ZipFile jar(String path) throws IOException {
+        ZipFile jar = JARS.get(path);
+        if (jar == null) {
+            jar = new ZipFile(path);
+            ZipFile existing = JARS.putIfAbsent(path, jar);
+            if (existing != null) {
+                jar.close();
+                jar = existing;
+            }
+        }
+        return jar;
+    }
+
+    /**
+     * Read a stream fully
+     *
+     * @param in   the stream to read, it is not closed
+     * @param size the number of bytes expected or -1 if unknown
+     */
+    public static byte[] read(InputStream in, long size) throws IOException {
+        if (size >= 0 && size <= Integer.MAX_VALUE) {
+            byte[] buf = new byte[(int) size];
+            new DataInputStream(in).readFully(buf);
+            return buf;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int read;
+        while ((read = in.read(buf)) != -1) {
+            out.write(buf, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Index the given class path elements
+     *
+     * @return the resources found keyed by their path within an element e.g. com/domain/product/MyClass.class
+     *         If more than one element has the same resource the first, as the JVM would load, is kept
+     */
+    public Map<String, CachedPath> scan(String[] elements) {
+        Map<String, Element> previous = load();
+        final List<ElementTask> tasks = new ArrayList<>(elements.length);
+        for (String element : elements) {
+            if (!element.isEmpty()) {
+                tasks.add(new ElementTask(element, previous));
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            pool.invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                    return null;
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        Map<String, CachedPath> resources = new HashMap<>();
+        Map<String, Element> jars = new LinkedHashMap<>();
+        boolean changed = false;
+        for (ElementTask task : tasks) {
+            Element element = task.getRawResult();
+            if (element == null) {
+                continue;
+            }
+            for (String name : element.names) {
+                if (!resources.containsKey(name)) {
+                    resources.put(name, new CachedPath(name, element.path, element.jar));
+                }
+            }
+            if (element.jar) {
+                jars.put(element.path, element);
+                changed |= element != previous.get(element.path);
+            }
+        }
+        if (changed || jars.size() != previous.size()) {
+            save(jars.values());
+        }
+        return resources;
+    }
+
+    protected Map<String, Element> load() {
+        if (indexFile == null || !indexFile.isFile()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Element> elements = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != VERSION || !pattern.pattern().equals(in.readUTF())) {
+                return Collections.emptyMap();
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Element e = new Element(in.readUTF(), in.readLong(), in.readLong(), true);
+                int names = in.readInt();
+                for (int j = 0; j < names; j++) {
+                    e.names.add(in.readUTF());
+                }
+                elements.put(e.path, e);
+            }
+        } catch (IOException e) {
+            log.warn(String.format("Unable to read class path index %s, it will be rebuilt", indexFile), e);
+            return Collections.emptyMap();
+        }
+        return elements;
+    }
+
+    protected void save(Collection<Element> jars) {
+        if (indexFile == null) {
+            return;
+        }
+        try {
+            //write then move so a concurrent start never reads half a file
+            File tmp = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getAbsoluteFile().getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(VERSION);
+                out.writeUTF(pattern.pattern());
+                out.writeInt(jars.size());
+                for (Element e : jars) {
+                    out.writeUTF(e.path);
+                    out.writeLong(e.size);
+                    out.writeLong(e.modified);
+                    out.writeInt(e.names.size());
+                    for (String name : e.names) {
+                        out.writeUTF(name);
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn(String.format("Unable to save class path index %s", indexFile), e);
+        }
+    }
+
+    protected static class Element {
+        protected final String path;
+        protected final long size;
+        protected final long modified;
+        protected final boolean jar;
+        protected final List<String> names = new ArrayList<>();
+
+        Element(String path, long size, long modified, boolean jar) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.jar = jar;
+        }
+    }
+
+    protected class ElementTask extends RecursiveTask<Element> {
+        private final String path;
+        private final Map<String, Element> previous;
+
+        ElementTask(String path, Map<String, Element> previous) {
+            this.path = path;
+            this.previous = previous;
+        }
+
+        @Override
+        protected Element compute() {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                try {
+                    //canonicalise once, the names of everything within it are relative
+                    File root = file.getCanonicalFile();
+                    Element element = new Element(root.getPath(), 0, 0, false);
+                    element.names.addAll(new DirectoryTask(root, "").compute());
+                    return element;
+                } catch (IOException e) {
+                    log.warn(String.format("Unable to scan class path directory %s", path), e);
+                    return null;
+                }
+            }
+            if (!file.isFile()) {
+                return null;
+            }
+            long size = file.length();
+            long modified = file.lastModified();
+            Element old = previous.get(path);
+            if (old != null && old.size == size && old.modified == modified) {
+                return old;
+            }
+            Element element = new Element(path, size, modified, true);
+            try {
+                Enumeration<? extends ZipEntry> entries = jar(path).entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && pattern.matcher(entry.getName()).matches()) {
+                        element.names.add(entry.getName());
+                    }
+                }
+            } catch (IOException e) {
+                log.warn(String.format("Unable to scan class path jar %s", path), e);
+                return null;
+            }
+            return element;
+        }
+    }
+
+    protected class DirectoryTask extends RecursiveTask<List<String>> {
+        private final File dir;
+        private final String prefix;
+
+        DirectoryTask(File dir, String prefix) {
+            this.dir = dir;
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected List<String> compute() {
+            List<String> names = new ArrayList<>();
+            File[] files = dir.listFiles();
+            if (files == null) {
+                return names;
+            }
+            List<DirectoryTask> children = new ArrayList<>();
+            for (File file : files) {
+                String name = prefix + file.getName();
+                if (file.isDirectory()) {
+                    children.add(new DirectoryTask(file, name + "/"));
+                } else if (pattern.matcher(name).matches()) {
+                    names.add(name);
+                }
+            }
+            for (DirectoryTask child : ForkJoinTask.invokeAll(children)) {
+                names.addAll(child.getRawResult());
+            }
+            return names;
+        }
+    }
+}
@@ -3,7 +3,6 @@ package io.higgs.core.reflect.classpath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
@@ -156,14 +155,9 @@ public class HiggsClassLoader extends ClassLoader {
         }
         InputStream stream = Thread.currentThread().getContextClassLoader().getResourceAsStream(name);
         if (stream != null) {
-            try {
-                int size = stream.available();
-                byte[] buff = new byte[size];
-                DataInputStream in = new DataInputStream(stream);
-                // Reading the binary data
-                in.readFully(buff);
-                in.close();
-                return buff;
+            //available() is only an estimate, read until the end
+            try (InputStream in = stream) {
+                return ClassPathIndex.read(in, -1);
             } catch (IOException e) {
                 return null;
             }
@@ -3,16 +3,14 @@ package io.higgs.core.reflect.classpath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -94,34 +92,29 @@ public class HiggsClassPathCache {
         return null;
     }
 
+    /**
+     * @param klass the path to the resource within its class path element e.g. com/domain/product/MyClass.class
+     * @return the resource's bytes or null if it isn't in the cache or can't be read
+     */
     public byte[] load(String klass) {
         CachedPath el = cache.get(klass);
         if (el != null) {
             try {
-                File file = new File(el.getPath());
                 if (el.isJar()) {
-                    ZipFile jar = new ZipFile(file);
-                    ZipEntry entry = jar.getEntry(klass);
-                    InputStream stream = jar.getInputStream(entry);
-                    int size = stream.available();
-                    byte[] buff = new byte[size];
-                    DataInputStream in = new DataInputStream(stream);
-                    // Reading the binary data
-                    in.readFully(buff);
-                    in.close();
-                    return buff;
+                    //shared and left open, jars are read from repeatedly as classes are loaded
+                    ZipFile jar = ClassPathIndex.jar(el.getPath());
+                    ZipEntry entry = jar.getEntry(el.getFilename());
+                    if (entry == null) {
+                        return null;
+                    }
+                    try (InputStream stream = jar.getInputStream(entry)) {
+                        return ClassPathIndex.read(stream, entry.getSize());
+                    }
                 } else {
-                    DataInputStream stream = new DataInputStream(new FileInputStream(file));
-                    int size = stream.available();
-                    byte[] buff = new byte[size];
-                    DataInputStream in = new DataInputStream(stream);
-                    // Reading the binary data
-                    in.readFully(buff);
-                    in.close();
-                    return buff;
+                    return Files.readAllBytes(new File(el.getPath(), el.getFilename()).toPath());
                 }
-            } catch (Exception e) {
-                //return empty byte array
+            } catch (IOException e) {
+                log.debug(String.format("Unable to load %s from %s", klass, el.getPath()), e);
             }
         }
         return null;
@@ -156,40 +149,21 @@ public class HiggsClassPathCache {
 
     /**
      * for all elements of java.class.path get a Collection of resources Pattern
-     * pattern = Pattern.compile(".*"); gets all resources
+     * pattern = Pattern.compile(".*"); gets all resources.
+     * See {@link ClassPathIndex} for how the class path is scanned and the index saved between starts
      *
      * @param pattern the pattern to match
-     * @return the resources in the order they are found
+     * @return the resources found, keyed by their path within their element
      */
     public Map<String, CachedPath> getResources(Pattern pattern) {
-        Map<String, CachedPath> retval = new HashMap<>();
         String classPath = System.getProperty("java.class.path", "");
         String[] classPathElements = classPath.split(System.getProperty("path.separator"));
-        for (String element : classPathElements) {
-            retval.putAll(getResources(element, pattern));
-        }
-        return retval;
+        File indexFile = ClassPathIndex.defaultIndexFile(classPath, pattern);
+        return new ClassPathIndex(pattern, indexFile).scan(classPathElements);
     }
 
     public Map<String, CachedPath> getResources(String jarOrDirName, Pattern pattern) {
-        Map<String, CachedPath> retval = new HashMap<>();
-        File file = new File(jarOrDirName);
-        if (file.isDirectory()) {
-            List<String> rc = getResourcesFromDirectory(file, pattern);
-            for (String fileName : rc) {
-                CachedPath p = new CachedPath(fileName, jarOrDirName, false);
-                retval.put(p.getFilename(), p);
-            }
-        } else {
-            if (file.isFile() && file.exists()) {
-                List<String> rc = getResourcesFromJarFile(file, pattern);
-                for (String fileName : rc) {
-                    CachedPath p = new CachedPath(fileName, jarOrDirName, true);
-                    retval.put(p.getFilename(), p);
-                }
-            }
-        }
-        return retval;
+        return new ClassPathIndex(pattern, null).scan(new String[]{jarOrDirName});
     }
 
     public List<String> getResourcesFromJarFile(File file, Pattern pattern) {
@@ -11,13 +11,40 @@ import java.util.Map;
  */
 public class DependencyProvider {
     private static final DependencyProvider global = new DependencyProvider();
-    private NonBlockingHashMap<Class<?>, Object> instances = new NonBlockingHashMap<>();
+    /**
+     * Cached in {@link #resolved} for types no dependency is assignable to
+     */
+    private static final Class<?> NONE = Void.class;
+    private final NonBlockingHashMap<Class<?>, Object> instances;
+    /**
+     * Requested type to the key of the dependency it resolved to, so that assignable lookups only scan
+     * {@link #instances} once per type. Replaced, after the new dependencies are visible, whenever a dependency is
+     * added so a lookup racing with an add can only write to the map being discarded
+     */
+    private volatile NonBlockingHashMap<Class<?>, Class<?>> resolved;
+    /**
+     * true while this provider is registered with the {@link Injector}
+     */
+    volatile boolean registered;
 
     static {
         //automatically register the global provider
         Injector.register(global);
     }
 
+    public DependencyProvider() {
+        this(true);
+    }
+
+    /**
+     * @param indexed if false no maps are created, for sub classes which store dependencies some other way and
+     *                override {@link #add(Object...)}, {@link #has(Class)} and {@link #get(Class)}
+     */
+    protected DependencyProvider(boolean indexed) {
+        instances = indexed ? new NonBlockingHashMap<Class<?>, Object>() : null;
+        resolved = indexed ? new NonBlockingHashMap<Class<?>, Class<?>>() : null;
+    }
+
     /**
      * Adds a set of instances to this provider
      *
@@ -31,6 +58,10 @@ public class DependencyProvider {
         for (Object o : dependency) {
             instances.put(o.getClass(), o);
         }
+        resolved = new NonBlockingHashMap<>();
+        if (registered) {
+            Injector.changed();
+        }
         return true;
     }
 
@@ -42,12 +73,7 @@ public class DependencyProvider {
      * @return true if an instance of the class exists in this provider
      */
     public boolean has(Class<?> klass) {
-        for (Map.Entry<Class<?>, Object> e : instances.entrySet()) {
-            if (klass.isAssignableFrom(e.getKey())) {
-                return true;
-            }
-        }
-        return false;
+        return get(klass) != null;
     }
 
     /**
@@ -58,12 +84,24 @@ public class DependencyProvider {
      * @return the instance or null if no instance exists, use {@link #has(Class)} to ensure an instance exists first
      */
     public Object get(Class<?> klass) {
-        for (Map.Entry<Class<?>, Object> e : instances.entrySet()) {
-            if (klass.isAssignableFrom(e.getKey())) {
-                return e.getValue();
+        //exact type first, it's the common case and needs no scan
+        Object instance = instances.get(klass);
+        if (instance != null) {
+            return instance;
+        }
+        NonBlockingHashMap<Class<?>, Class<?>> cache = resolved;
+        Class<?> key = cache.get(klass);
+        if (key == null) {
+            key = NONE;
+            for (Map.Entry<Class<?>, Object> e : instances.entrySet()) {
+                if (klass.isAssignableFrom(e.getKey())) {
+                    key = e.getKey();
+                    break;
+                }
             }
+            cache.put(klass, key);
         }
-        return null;
+        return key == NONE ? null : instances.get(key);
     }
 
     /**
@@ -75,13 +113,10 @@ public class DependencyProvider {
 
     /**
      * @param objs a set of dependencies
-     * @return a new provider with the dependencies provided
+     * @return a new provider with the dependencies provided, backed by an array rather than a map since these are
+     *         generally created per request with only a handful of dependencies
      */
     public static DependencyProvider from(Object... objs) {
-        DependencyProvider provider = new DependencyProvider();
-        for (Object o : objs) {
-            provider.add(o);
-        }
-        return provider;
+        return new RequestDependencyProvider(objs);
     }
 }
@@ -0,0 +1,143 @@
+package io.higgs.core.reflect.dependency;
+
+import io.higgs.core.reflect.ReflectionUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The fields of a class which {@link Injector#inject(Object, DependencyProvider)} can populate, worked out once
+ * per class. Only non-static, non-final fields of a reference type are included since nothing else can ever
+ * be null and injected. Each field has a getter and setter handle so injecting an instance does no reflective
+ * lookups or access checks.
+ * <p/>
+ * The registered provider able to supply each field is resolved lazily and re-resolved whenever the set of
+ * registered providers, or the contents of one, changes.
+ */
+final class FieldInjectionPlan {
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private final InjectableField[] fields;
+    private volatile Slots slots;
+
+    private FieldInjectionPlan(InjectableField[] fields) {
+        this.fields = fields;
+    }
+
+    static FieldInjectionPlan of(Class<?> klass) {
+        Set<Field> all = ReflectionUtil.getAllFields(new LinkedHashSet<Field>(), klass);
+        List<InjectableField> injectable = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Field field : all) {
+            int mod = field.getModifiers();
+            if (Modifier.isStatic(mod) || Modifier.isFinal(mod) || field.isSynthetic()
+                    || field.getType().isPrimitive()) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER);
+                MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER);
+                injectable.add(new InjectableField(field.getName(), field.getType(), getter, setter));
+            } catch (RuntimeException | IllegalAccessException ignored) {
+                //SecurityException or, on newer JVMs, an inaccessible module - the field can't be injected
+                continue;
+            }
+        }
+        return new FieldInjectionPlan(injectable.toArray(new InjectableField[injectable.size()]));
+    }
+
+    /**
+     * @return true if the class has no fields which could be injected
+     */
+    boolean isEmpty() {
+        return fields.length == 0;
+    }
+
+    /**
+     * @param local the dependencies to check
+     * @return the names of the fields the local dependencies can supply, empty if there are none
+     */
+    List<String> suppliedBy(DependencyProvider local) {
+        List<String> names = new ArrayList<>();
+        for (InjectableField field : fields) {
+            if (local.get(field.type) != null) {
+                names.add(field.name);
+            }
+        }
+        return names;
+    }
+
+    void inject(Object instance, DependencyProvider local, boolean refresh, Iterable<DependencyProvider> providers,
+                int generation) {
+        Slots s = slots;
+        if (s == null || s.generation != generation) {
+            s = new Slots(generation, resolve(providers));
+            slots = s;
+        }
+        for (int i = 0; i < fields.length; i++) {
+            InjectableField field = fields[i];
+            try {
+                //only null fields are injected, unless refreshing the ones the local dependencies supply
+                boolean empty = field.getter.invokeExact(instance) == null;
+                if (!empty && !refresh) {
+                    continue;
+                }
+                Object param = local.get(field.type);
+                if (param == null && empty && s.providers[i] != null) {
+                    param = s.providers[i].get(field.type);
+                }
+                if (param != null) {
+                    field.setter.invokeExact(instance, param);
+                }
+            } catch (Throwable ignored) {
+                //the field can't be read or set, same as if there was nothing to inject
+                continue;
+            }
+        }
+    }
+
+    private DependencyProvider[] resolve(Iterable<DependencyProvider> providers) {
+        DependencyProvider[] resolved = new DependencyProvider[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            for (DependencyProvider provider : providers) {
+                if (provider.has(fields[i].type) && provider.get(fields[i].type) != null) {
+                    resolved[i] = provider;
+                    break;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private static final class InjectableField {
+        private final String name;
+        private final Class<?> type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        InjectableField(String name, Class<?> type, MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    private static final class Slots {
+        private final int generation;
+        private final DependencyProvider[] providers;
+
+        Slots(int generation, DependencyProvider[] providers) {
+            this.generation = generation;
+            this.providers = providers;
+        }
+    }
+}
@@ -4,9 +4,9 @@ import io.higgs.core.reflect.ReflectionUtil;
 import org.cliffc.high_scale_lib.NonBlockingHashMap;
 import org.cliffc.high_scale_lib.NonBlockingHashSet;
 
-import java.lang.reflect.Field;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A registry for {@link DependencyProvider}s that can be used to inject objects into instances and parameters
@@ -16,6 +16,16 @@ import java.util.Set;
 public class Injector {
     private static NonBlockingHashSet<DependencyProvider> providers = new NonBlockingHashSet<>();
     private static NonBlockingHashMap<String, DependencyProvider> namedProviders = new NonBlockingHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, FieldInjectionPlan> plans = new ConcurrentHashMap<>();
+    /**
+     * Incremented whenever the un-named providers, or the dependencies in one of them, change so that
+     * {@link FieldInjectionPlan}s know to re-resolve which provider supplies each field
+     */
+    private static final AtomicInteger generation = new AtomicInteger();
+    /**
+     * The un-named provider which supplied each requested type, tagged with the generation it was resolved in
+     */
+    private static final ConcurrentHashMap<Class<?>, Resolution> resolutions = new ConcurrentHashMap<>();
 
     /**
      * Register an un-named dependency provider
@@ -24,8 +34,10 @@ public class Injector {
      */
     public static void register(DependencyProvider... providers) {
         for (DependencyProvider o : providers) {
+            o.registered = true;
             Injector.providers.add(o);
         }
+        changed();
     }
 
     /**
@@ -35,7 +47,19 @@ public class Injector {
      * @return false if the provider was either not in the set or the parameter is null, true if it was removed
      */
     public static boolean deRegister(DependencyProvider provider) {
-        return provider != null && providers.remove(provider);
+        if (provider != null && providers.remove(provider)) {
+            provider.registered = false;
+            changed();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Invalidates any provider resolved for a field, called when the un-named providers change
+     */
+    static void changed() {
+        generation.incrementAndGet();
     }
 
     /**
@@ -122,23 +146,42 @@ public class Injector {
                     }
                 }
                 //try to inject from local dependencies
-                if (local.has(expectedClass)) {
-                    param = local.get(expectedClass);
+                param = local.get(expectedClass);
+                if (param != null) {
                     p[i] = param;
+                    continue;
                 }
                 //could not inject from provided parameters or local deps - use dependency providers
-                for (DependencyProvider provider : providers) {
-                    if (provider.has(expectedClass)) {
-                        param = provider.get(expectedClass);
-                        p[i] = param;
-                        break;
-                    }
+                DependencyProvider provider = providerFor(expectedClass);
+                if (provider != null) {
+                    p[i] = provider.get(expectedClass);
                 }
             }
         }
         return p;
     }
 
+    /**
+     * @param type the type to find a provider for
+     * @return the first registered un-named provider able to supply the type or null if none can
+     */
+    static DependencyProvider providerFor(Class<?> type) {
+        int gen = generation.get();
+        Resolution r = resolutions.get(type);
+        if (r == null || r.generation != gen) {
+            DependencyProvider found = null;
+            for (DependencyProvider provider : providers) {
+                if (provider.has(type)) {
+                    found = provider;
+                    break;
+                }
+            }
+            r = new Resolution(gen, found);
+            resolutions.put(type, r);
+        }
+        return r.provider;
+    }
+
     private static boolean assignParam(Class<?> expectedClass, Object[] p, int i, Object param) {
         Class<?> paramClass = param.getClass();
 
@@ -179,54 +222,62 @@ public class Injector {
     /**
      * Inject fields of an object with all known un-named dependencies
      * i.e. Named dependencies are not used...
+     * Only null, non-static, non-final fields are injected. The fields of each class are worked out the first time
+     * an instance of it is injected, see {@link FieldInjectionPlan}
      *
      * @param instance the instance to inject
      * @param local    a local set of dependencies
      */
     public static void inject(Object instance, DependencyProvider local) {
+        inject(instance, local, false);
+    }
+
+    /**
+     * Inject fields of an object as {@link #inject(Object, DependencyProvider)} does
+     *
+     * @param instance the instance to inject
+     * @param local    a local set of dependencies
+     * @param refresh  if true fields the local dependencies can supply are set even if they're not null, for an
+     *                 instance used by one request after another which would otherwise keep the first one's
+     */
+    public static void inject(Object instance, DependencyProvider local, boolean refresh) {
         if (instance == null) {
             return;
         }
-        Set<Field> fields = ReflectionUtil.getAllFields(new HashSet<Field>(), instance.getClass());
-        for (Field field : fields) {
-            try {
-                field.setAccessible(true);
-            } catch (SecurityException se) {
-                return;
-            }
-            try {
-                //only null fields are injected
-                if (field.get(instance) != null) {
-                    continue;
-                }
-            } catch (IllegalAccessException e) {
-                return;
-            }
-            Class<?> fieldType = field.getType();
-            Object param;
-            //try to inject from local dependencies
-            if (local.has(fieldType) && (param = local.get(fieldType)) != null) {
-                if (setField(instance, field, param)) {
-                    continue;
-                }
-            }
-            //could not inject from local deps - use other dependency providers
-            for (DependencyProvider provider : providers) {
-                if (provider.has(fieldType) && (param = provider.get(fieldType)) != null) {
-                    if (setField(instance, field, param)) {
-                        break;
-                    }
-                }
+        FieldInjectionPlan plan = planFor(instance.getClass());
+        if (!plan.isEmpty()) {
+            plan.inject(instance, local, refresh, providers, generation.get());
+        }
+    }
+
+    /**
+     * @param klass the class whose fields to check
+     * @param local a local set of dependencies
+     * @return the names of the injectable fields of the class which the local dependencies can supply
+     */
+    public static List<String> suppliedBy(Class<?> klass, DependencyProvider local) {
+        return planFor(klass).suppliedBy(local);
+    }
+
+    private static FieldInjectionPlan planFor(Class<?> klass) {
+        FieldInjectionPlan plan = plans.get(klass);
+        if (plan == null) {
+            plan = FieldInjectionPlan.of(klass);
+            FieldInjectionPlan existing = plans.putIfAbsent(klass, plan);
+            if (existing != null) {
+                plan = existing;
             }
         }
+        return plan;
     }
 
-    private static boolean setField(Object instance, Field field, Object param) {
-        try {
-            field.set(instance, param);
-            return true;
-        } catch (Throwable e) {
-            return false;
+    private static final class Resolution {
+        private final int generation;
+        private final DependencyProvider provider;
+
+        Resolution(int generation, DependencyProvider provider) {
+            this.generation = generation;
+            this.provider = provider;
         }
     }
 }
@@ -0,0 +1,67 @@
+package io.higgs.core.reflect.dependency;
+
+/**
+ * A provider for the handful of objects available to a single request, the channel context, channel, executor,
+ * message, pusher etc. Dependencies are kept in an array and looked up with a linear scan which, for so few
+ * entries, is cheaper than creating and hashing into a map on each request.
+ * <p/>
+ * As with {@link DependencyProvider} adding an instance of a class that's already present replaces it.
+ * Not thread safe, a request's provider should only be used by the thread handling the request.
+ */
+public class RequestDependencyProvider extends DependencyProvider {
+    private Object[] instances;
+    private int size;
+
+    public RequestDependencyProvider(Object... dependencies) {
+        super(false);
+        instances = new Object[dependencies == null ? 0 : dependencies.length];
+        add(dependencies);
+    }
+
+    @Override
+    public boolean add(Object... dependency) {
+        if (dependency == null) {
+            return false;
+        }
+        for (Object o : dependency) {
+            if (o == null) {
+                continue;
+            }
+            int idx = indexOfExact(o.getClass());
+            if (idx != -1) {
+                instances[idx] = o;
+                continue;
+            }
+            if (size == instances.length) {
+                Object[] grown = new Object[size + 4];
+                System.arraycopy(instances, 0, grown, 0, size);
+                instances = grown;
+            }
+            instances[size++] = o;
+        }
+        return true;
+    }
+
+    @Override
+    public Object get(Class<?> klass) {
+        int idx = indexOfExact(klass);
+        if (idx != -1) {
+            return instances[idx];
+        }
+        for (int i = 0; i < size; i++) {
+            if (klass.isInstance(instances[i])) {
+                return instances[i];
+            }
+        }
+        return null;
+    }
+
+    private int indexOfExact(Class<?> klass) {
+        for (int i = 0; i < size; i++) {
+            if (instances[i].getClass() == klass) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
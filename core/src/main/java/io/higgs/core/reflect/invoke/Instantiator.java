@@ -0,0 +1,13 @@
+package io.higgs.core.reflect.invoke;
+
+/**
+ * Creates instances of a class using its no-args constructor.
+ * Implementations must be thread safe.
+ */
+public interface Instantiator {
+    /**
+     * @return a new instance
+     * @throws InstantiationException if the constructor throws or the instance cannot be created
+     */
+    Object newInstance() throws InstantiationException;
+}
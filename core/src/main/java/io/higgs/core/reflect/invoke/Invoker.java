@@ -0,0 +1,19 @@
+package io.higgs.core.reflect.invoke;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * A call site for a single method, resolved once and then used for every invocation of that method.
+ * Implementations must be thread safe.
+ */
+public interface Invoker {
+    /**
+     * Invoke the method this invoker was created for
+     *
+     * @param instance the instance to invoke the method on, ignored for static methods
+     * @param args     the arguments, must have the same length as the method's parameter list
+     * @return the value returned by the method, null for void methods
+     * @throws InvocationTargetException if the method throws an exception, the exception is the cause
+     */
+    Object invoke(Object instance, Object[] args) throws InvocationTargetException;
+}
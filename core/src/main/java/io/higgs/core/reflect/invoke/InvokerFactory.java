@@ -0,0 +1,21 @@
+package io.higgs.core.reflect.invoke;
+
+import java.lang.reflect.Method;
+
+/**
+ * A strategy for creating {@link Invoker}s and {@link Instantiator}s
+ */
+public interface InvokerFactory {
+    /**
+     * @param method the method to create an invoker for
+     * @return an invoker for the method
+     * @throws IllegalArgumentException if an invoker cannot be created for the method
+     */
+    Invoker invoker(Method method);
+
+    /**
+     * @param klass the class to create an instantiator for
+     * @return an instantiator or null if the class doesn't have an accessible no-args constructor
+     */
+    Instantiator instantiator(Class<?> klass);
+}
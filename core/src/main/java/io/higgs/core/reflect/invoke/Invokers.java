@@ -0,0 +1,187 @@
+package io.higgs.core.reflect.invoke;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates and caches {@link Invoker}s and {@link Instantiator}s so that each method or class is only ever
+ * resolved once.
+ * <p/>
+ * The strategy used can be set with the system property "higgs.invoker" to one of "javassist",
+ * "methodhandle" or "reflection", or with {@link #setFactory(InvokerFactory)} before any methods are registered.
+ * The default is javassist if it is on the class path, otherwise method handles. If the chosen strategy
+ * can't create an invoker for a method then method handles and finally plain reflection are used.
+ */
+public final class Invokers {
+    public static final String PROPERTY = "higgs.invoker";
+    private static final Logger log = LoggerFactory.getLogger(Invokers.class);
+    private static final Instantiator NONE = new Instantiator() {
+        @Override
+        public Object newInstance() throws InstantiationException {
+            throw new InstantiationException();
+        }
+    };
+    private static final ConcurrentHashMap<Method, Invoker> invokers = new ConcurrentHashMap<>();
+    private static final Invoker NO_INVOKER = new Invoker() {
+        @Override
+        public Object invoke(Object instance, Object[] args) {
+            return null;
+        }
+    };
+    private static final ConcurrentHashMap<Class<?>, Instantiator> instantiators = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, Invoker> initHooks = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, Invoker> resetHooks = new ConcurrentHashMap<>();
+    private static final InvokerFactory methodHandles = new MethodHandleInvokerFactory();
+    private static final InvokerFactory reflection = new ReflectionInvokerFactory();
+    private static volatile InvokerFactory factory = defaultFactory();
+
+    private Invokers() {
+    }
+
+    private static InvokerFactory defaultFactory() {
+        String name = System.getProperty(PROPERTY, "");
+        switch (name.toLowerCase()) {
+            case "reflection":
+                return reflection;
+            case "methodhandle":
+                return methodHandles;
+            case "javassist":
+            default:
+                if (isJavassistAvailable()) {
+                    return new JavassistInvokerFactory();
+                }
+                if (name.equalsIgnoreCase("javassist")) {
+                    log.warn("javassist invokers requested but javassist is not on the class path");
+                }
+                return methodHandles;
+        }
+    }
+
+    /**
+     * Checked here rather than in {@link JavassistInvokerFactory} so the check doesn't load classes which link
+     * against javassist
+     *
+     * @return true if javassist is on the class path
+     */
+    public static boolean isJavassistAvailable() {
+        try {
+            Class.forName("javassist.ClassPool", false, Invokers.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the strategy used to create new invokers
+     */
+    public static InvokerFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Set the strategy used to create invokers, invokers which have already been created are not replaced
+     *
+     * @param factory the new strategy
+     */
+    public static void setFactory(InvokerFactory factory) {
+        if (factory == null) {
+            throw new IllegalArgumentException("Invoker factory cannot be null");
+        }
+        Invokers.factory = factory;
+    }
+
+    /**
+     * @param method the method to get an invoker for
+     * @return a cached invoker for the method, created if necessary
+     */
+    public static Invoker invoker(Method method) {
+        Invoker invoker = invokers.get(method);
+        if (invoker == null) {
+            invoker = create(method);
+            Invoker existing = invokers.putIfAbsent(method, invoker);
+            if (existing != null) {
+                invoker = existing;
+            }
+        }
+        return invoker;
+    }
+
+    /**
+     * @param klass the class to get an instantiator for
+     * @return a cached instantiator or null if the class can't be instantiated with a no-args constructor
+     */
+    public static Instantiator instantiator(Class<?> klass) {
+        Instantiator instantiator = instantiators.get(klass);
+        if (instantiator == null) {
+            instantiator = createInstantiator(klass);
+            Instantiator existing = instantiators.putIfAbsent(klass, instantiator);
+            if (existing != null) {
+                instantiator = existing;
+            }
+        }
+        return instantiator == NONE ? null : instantiator;
+    }
+
+    /**
+     * @param klass the class to get the init hook for
+     * @return a cached invoker for the class' public, no-args init() method or null if it has none
+     */
+    public static Invoker init(Class<?> klass) {
+        return hook(initHooks, klass, "init");
+    }
+
+    /**
+     * @param klass the class to get the reset hook for
+     * @return a cached invoker for the class' public, no-args reset() method or null if it has none
+     */
+    public static Invoker reset(Class<?> klass) {
+        return hook(resetHooks, klass, "reset");
+    }
+
+    private static Invoker hook(ConcurrentHashMap<Class<?>, Invoker> hooks, Class<?> klass, String name) {
+        Invoker hook = hooks.get(klass);
+        if (hook == null) {
+            try {
+                hook = invoker(klass.getMethod(name));
+            } catch (NoSuchMethodException e) {
+                hook = NO_INVOKER;
+            }
+            hooks.putIfAbsent(klass, hook);
+        }
+        return hook == NO_INVOKER ? null : hook;
+    }
+
+    private static Invoker create(Method method) {
+        InvokerFactory f = factory;
+        try {
+            return f.invoker(method);
+        } catch (RuntimeException e) {
+            log.debug(String.format("%s could not create an invoker for %s, falling back to method handles",
+                    f.getClass().getSimpleName(), method), e);
+        }
+        try {
+            return methodHandles.invoker(method);
+        } catch (RuntimeException e) {
+            log.debug(String.format("Unable to create a method handle for %s, falling back to reflection",
+                    method), e);
+        }
+        return reflection.invoker(method);
+    }
+
+    private static Instantiator createInstantiator(Class<?> klass) {
+        InvokerFactory f = factory;
+        Instantiator instantiator = null;
+        try {
+            instantiator = f.instantiator(klass);
+        } catch (RuntimeException e) {
+            log.debug(String.format("%s could not create an instantiator for %s, falling back to method handles",
+                    f.getClass().getSimpleName(), klass.getName()), e);
+            instantiator = methodHandles.instantiator(klass);
+        }
+        return instantiator == null ? NONE : instantiator;
+    }
+}
@@ -0,0 +1,140 @@
+package io.higgs.core.reflect.invoke;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a class for each method which calls it directly, the same code javac would produce if the call
+ * had been written by hand. Generated classes are defined in the same class loader and package as the
+ * class declaring the method so package private classes can be invoked.
+ * <p/>
+ * Javassist is an optional dependency, use {@link Invokers#isJavassistAvailable()} before loading this class.
+ */
+public class JavassistInvokerFactory implements InvokerFactory {
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Invoker invoker(Method method) {
+        Class<?> klass = method.getDeclaringClass();
+        Class<?>[] params = method.getParameterTypes();
+        StringBuilder call = new StringBuilder();
+        if (Modifier.isStatic(method.getModifiers())) {
+            call.append(typeName(klass));
+        } else {
+            call.append("((").append(typeName(klass)).append(") $1)");
+        }
+        call.append('.').append(method.getName()).append('(');
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                call.append(", ");
+            }
+            call.append(unbox(params[i], "$2[" + i + "]"));
+        }
+        call.append(')');
+        Class<?> returnType = method.getReturnType();
+        String body;
+        if (returnType == void.class) {
+            body = call + "; return null;";
+        } else {
+            body = "return " + box(returnType, call.toString()) + ";";
+        }
+        String src = "public Object invoke(Object instance, Object[] args) "
+                + "throws java.lang.reflect.InvocationTargetException {"
+                + "try { " + body + " } catch (Throwable t) {"
+                + " throw new java.lang.reflect.InvocationTargetException(t); } }";
+        return (Invoker) generate(klass, Invoker.class, src, method.getName());
+    }
+
+    @Override
+    public Instantiator instantiator(Class<?> klass) {
+        if (klass.isInterface() || Modifier.isAbstract(klass.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = klass.getDeclaredConstructor();
+            if (Modifier.isPrivate(constructor.getModifiers())) {
+                return null;
+            }
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        String src = "public Object newInstance() throws InstantiationException {"
+                + "try { return new " + typeName(klass) + "(); } catch (Throwable t) {"
+                + " InstantiationException ie = new InstantiationException(t.getMessage());"
+                + " ie.initCause(t); throw ie; } }";
+        return (Instantiator) generate(klass, Instantiator.class, src, "new");
+    }
+
+    private Object generate(Class<?> klass, Class<?> iface, String src, String suffix) {
+        ClassLoader loader = klass.getClassLoader() == null ? getClass().getClassLoader() : klass.getClassLoader();
+        ClassPool pool = new ClassPool(true);
+        pool.appendClassPath(new LoaderClassPath(loader));
+        pool.appendClassPath(new LoaderClassPath(getClass().getClassLoader()));
+        String name = klass.getName() + "$$Higgs" + iface.getSimpleName() + "$" + suffix + "$"
+                + counter.incrementAndGet();
+        CtClass cc = pool.makeClass(name);
+        try {
+            cc.addInterface(pool.get(iface.getName()));
+            cc.addMethod(CtNewMethod.make(src, cc));
+            Class<?> generated = cc.toClass(loader, klass.getProtectionDomain());
+            return generated.newInstance();
+        } catch (Exception | LinkageError e) {
+            throw new IllegalArgumentException(String.format("Unable to generate %s for %s",
+                    iface.getSimpleName(), klass.getName()), e);
+        } finally {
+            cc.detach();
+        }
+    }
+
+    /**
+     * @return the name of the type as it would be written in source, nested classes keep the $ separator
+     */
+    private static String typeName(Class<?> type) {
+        if (type.isArray()) {
+            return typeName(type.getComponentType()) + "[]";
+        }
+        return type.getName();
+    }
+
+    private static String unbox(Class<?> type, String expr) {
+        if (!type.isPrimitive()) {
+            return "(" + typeName(type) + ") " + expr;
+        }
+        return "((" + wrapper(type).getName() + ") " + expr + ")." + type.getName() + "Value()";
+    }
+
+    private static String box(Class<?> type, String expr) {
+        if (!type.isPrimitive()) {
+            return expr;
+        }
+        return wrapper(type).getName() + ".valueOf(" + expr + ")";
+    }
+
+    private static Class<?> wrapper(Class<?> type) {
+        if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == char.class) {
+            return Character.class;
+        }
+        throw new IllegalArgumentException(type.getName());
+    }
+}
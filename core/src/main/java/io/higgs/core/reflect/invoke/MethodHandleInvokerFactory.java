@@ -0,0 +1,75 @@
+package io.higgs.core.reflect.invoke;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes methods through a {@link MethodHandle} adapted once to the shape (Object, Object[])Object so each
+ * invocation is a single {@link MethodHandle#invokeExact(Object...)} with no access checks or argument copying.
+ */
+public class MethodHandleInvokerFactory implements InvokerFactory {
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    @Override
+    public Invoker invoker(Method method) {
+        MethodHandle mh;
+        try {
+            if (!method.isAccessible()) {
+                method.setAccessible(true);
+            }
+            mh = lookup.unreflect(method);
+        } catch (IllegalAccessException | SecurityException e) {
+            throw new IllegalArgumentException(String.format("Unable to access %s", method), e);
+        }
+        int arity = method.getParameterTypes().length;
+        if (Modifier.isStatic(method.getModifiers())) {
+            //accept and ignore the instance so static and instance methods have the same shape
+            mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        }
+        //box primitives, erase reference types and return null for void methods
+        mh = mh.asType(MethodType.genericMethodType(arity + 1));
+        final MethodHandle handle = mh.asSpreader(Object[].class, arity);
+        return new Invoker() {
+            @Override
+            public Object invoke(Object instance, Object[] args) throws InvocationTargetException {
+                try {
+                    return (Object) handle.invokeExact(instance, args);
+                } catch (Throwable t) {
+                    throw new InvocationTargetException(t);
+                }
+            }
+        };
+    }
+
+    @Override
+    public Instantiator instantiator(Class<?> klass) {
+        if (klass.isInterface() || Modifier.isAbstract(klass.getModifiers())) {
+            return null;
+        }
+        final MethodHandle handle;
+        try {
+            Constructor<?> constructor = klass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            handle = lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+            return null;
+        }
+        return new Instantiator() {
+            @Override
+            public Object newInstance() throws InstantiationException {
+                try {
+                    return (Object) handle.invokeExact();
+                } catch (Throwable t) {
+                    InstantiationException ie = new InstantiationException(t.getMessage());
+                    ie.initCause(t);
+                    throw ie;
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package io.higgs.core.reflect.invoke;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes methods with {@link Method#invoke(Object, Object...)}.
+ * Mainly here as a base line for comparing other strategies, see InvokerBenchmark in the tests
+ */
+public class ReflectionInvokerFactory implements InvokerFactory {
+    @Override
+    public Invoker invoker(final Method method) {
+        return new Invoker() {
+            @Override
+            public Object invoke(Object instance, Object[] args) throws InvocationTargetException {
+                try {
+                    return method.invoke(instance, args);
+                } catch (IllegalAccessException | IllegalArgumentException e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public Instantiator instantiator(Class<?> klass) {
+        if (klass.isInterface() || Modifier.isAbstract(klass.getModifiers())) {
+            return null;
+        }
+        final Constructor<?> constructor;
+        try {
+            constructor = klass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException | SecurityException e) {
+            return null;
+        }
+        return new Instantiator() {
+            @Override
+            public Object newInstance() throws InstantiationException {
+                try {
+                    return constructor.newInstance();
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    InstantiationException ie = new InstantiationException(e.getMessage());
+                    ie.initCause(e);
+                    throw ie;
+                }
+            }
+        };
+    }
+}
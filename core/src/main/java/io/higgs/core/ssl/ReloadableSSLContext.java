@@ -0,0 +1,129 @@
+package io.higgs.core.ssl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An {@link SSLContext} built once from an {@link SSLConfiguration} and shared by every connection, so the key and
+ * trust stores are only read once and TLS sessions can be resumed across connections.
+ * <p/>
+ * If the key or trust store file changes a new context is built and swapped in atomically, connections already
+ * established keep the context they were created with. Files are checked at most once every
+ * {@link SSLConfiguration#getReloadCheckInterval()} milliseconds, on whichever thread asks for the context.
+ * If the new files can't be loaded the current context continues to be used.
+ */
+public class ReloadableSSLContext {
+    private static final Logger log = LoggerFactory.getLogger(ReloadableSSLContext.class);
+    private final SSLConfiguration config;
+    private final AtomicReference<Loaded> current = new AtomicReference<>();
+    private volatile long nextCheck;
+
+    public ReloadableSSLContext(SSLConfiguration config) {
+        this.config = config;
+    }
+
+    /**
+     * @return the current context or null if one couldn't be created
+     */
+    public SSLContext get() {
+        Loaded loaded = current.get();
+        if (loaded == null) {
+            loaded = load(null);
+        } else {
+            long interval = config.getReloadCheckInterval();
+            long now = System.currentTimeMillis();
+            if (interval > 0 && now >= nextCheck) {
+                nextCheck = now + interval;
+                if (loaded.isStale(config)) {
+                    loaded = load(loaded);
+                }
+            }
+        }
+        return loaded == null ? null : loaded.context;
+    }
+
+    /**
+     * Build a new context now, regardless of whether the files have changed
+     *
+     * @return the new context or the current one if a new one couldn't be built
+     */
+    public SSLContext reload() {
+        Loaded loaded = load(current.get());
+        return loaded == null ? null : loaded.context;
+    }
+
+    private Loaded load(Loaded previous) {
+        //read before loading so a write which lands while loading is seen by the next check
+        long keyStoreModified = Loaded.modified(config.getKeyStorePath());
+        long trustStoreModified = Loaded.modified(config.getTrustStorePath());
+        SSLContext context;
+        try {
+            context = SSLContextFactory.createContext(config);
+        } catch (GeneralSecurityException | IOException e) {
+            //e.g. a store which is half written, previous keeps its times so the files are checked again
+            if (previous != null) {
+                log.warn("Unable to reload SSL context, continuing to use the existing one", e);
+            } else {
+                log.warn("Unable to create SSL context", e);
+            }
+            return previous;
+        }
+        SSLSessionContext sessions = context.getServerSessionContext();
+        if (sessions != null) {
+            if (config.getSessionCacheSize() >= 0) {
+                sessions.setSessionCacheSize(config.getSessionCacheSize());
+            }
+            if (config.getSessionTimeout() >= 0) {
+                sessions.setSessionTimeout(config.getSessionTimeout());
+            }
+        }
+        Loaded loaded = new Loaded(context, config, keyStoreModified, trustStoreModified);
+        //if another thread got there first use what it loaded, both saw the same files
+        if (!current.compareAndSet(previous, loaded)) {
+            return current.get();
+        }
+        if (previous != null) {
+            log.info("Key or trust store changed, SSL context reloaded");
+        }
+        nextCheck = System.currentTimeMillis() + config.getReloadCheckInterval();
+        return loaded;
+    }
+
+    private static final class Loaded {
+        private final SSLContext context;
+        private final String keyStorePath;
+        private final String trustStorePath;
+        private final long keyStoreModified;
+        private final long trustStoreModified;
+
+        Loaded(SSLContext context, SSLConfiguration config, long keyStoreModified, long trustStoreModified) {
+            this.context = context;
+            keyStorePath = config.getKeyStorePath();
+            trustStorePath = config.getTrustStorePath();
+            this.keyStoreModified = keyStoreModified;
+            this.trustStoreModified = trustStoreModified;
+        }
+
+        boolean isStale(SSLConfiguration config) {
+            return !same(keyStorePath, config.getKeyStorePath())
+                    || !same(trustStorePath, config.getTrustStorePath())
+                    || keyStoreModified != modified(keyStorePath)
+                    || trustStoreModified != modified(trustStorePath);
+        }
+
+        private static boolean same(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        static long modified(String path) {
+            return path == null ? 0 : new File(path).lastModified();
+        }
+    }
+}
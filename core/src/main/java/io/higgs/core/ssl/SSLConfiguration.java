@@ -15,6 +15,19 @@ public class SSLConfiguration {
 
     private String securityProviderClass = "com.sun.net.ssl.internal.www.protocol";
     private String securityProtocol = "TLS";
+    /**
+     * Maximum number of server side TLS sessions cached for resumption, 0 means no limit and less than 0 leaves the
+     * JVM's default
+     */
+    private int sessionCacheSize = -1;
+    /**
+     * Seconds a cached TLS session can be resumed for, 0 means no limit and less than 0 leaves the JVM's default
+     */
+    private int sessionTimeout = -1;
+    /**
+     * Minimum milliseconds between checks for changes to the key and trust store files, less than 1 disables reloading
+     */
+    private long reloadCheckInterval = 5000;
 
     protected SSLConfiguration() {
     }
@@ -106,4 +119,28 @@ public class SSLConfiguration {
     public void setSecurityProtocol(String securityProtocol) {
         this.securityProtocol = securityProtocol;
     }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    public void setSessionTimeout(int sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    public long getReloadCheckInterval() {
+        return reloadCheckInterval;
+    }
+
+    public void setReloadCheckInterval(long reloadCheckInterval) {
+        this.reloadCheckInterval = reloadCheckInterval;
+    }
 }
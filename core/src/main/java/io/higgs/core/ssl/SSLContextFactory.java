@@ -4,13 +4,83 @@ import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.SecureRandom;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class SSLContextFactory {
+    private static final Map<SSLConfiguration, ReloadableSSLContext> serverContexts = new WeakHashMap<>();
+
     protected SSLContextFactory() {
     }
 
+    /**
+     * Get the shared server context for a configuration. Unlike {@link #getSSLSocket(SSLConfiguration)} the stores
+     * are only loaded when the context is first created or when they change, see {@link ReloadableSSLContext}
+     *
+     * @param sslConfiguration the configuration
+     * @return the shared context or null if one couldn't be created
+     */
+    public static SSLContext getServerContext(SSLConfiguration sslConfiguration) {
+        ReloadableSSLContext context;
+        synchronized (serverContexts) {
+            context = serverContexts.get(sslConfiguration);
+            if (context == null) {
+                context = new ReloadableSSLContext(sslConfiguration);
+                serverContexts.put(sslConfiguration, context);
+            }
+        }
+        return context.get();
+    }
+
+    /**
+     * Creates a new context like {@link #getSSLSocket(SSLConfiguration)} but fails rather than leaving out a key or
+     * trust store which is configured and can't be read, e.g. because it's being replaced
+     *
+     * @param sslConfiguration the configuration
+     * @return a new context with every configured store loaded
+     * @throws GeneralSecurityException if a store is invalid or the context can't be initialised with it
+     * @throws IOException              if a store can't be read
+     */
+    public static SSLContext createContext(SSLConfiguration sslConfiguration)
+            throws GeneralSecurityException, IOException {
+        TrustManagerFactory tmf = null;
+        if (sslConfiguration.getTrustStorePath() != null) {
+            KeyStore trustStore = KeyStore.getInstance(sslConfiguration.getTrustStoreType());
+            try (InputStream in = new FileInputStream(sslConfiguration.getTrustStorePath())) {
+                trustStore.load(in, sslConfiguration.getTrustStorePassword() == null ? "".toCharArray() :
+                        sslConfiguration.getTrustStorePassword().toCharArray());
+            }
+            tmf = TrustManagerFactory.getInstance(sslConfiguration.getTrustManagerFactoryType());
+            tmf.init(trustStore);
+        }
+        KeyManagerFactory kmf = null;
+        if (sslConfiguration.getKeyStorePath() != null) {
+            KeyStore keyStore = KeyStore.getInstance(sslConfiguration.getKeyStoreType());
+            try (InputStream in = new FileInputStream(sslConfiguration.getKeyStorePath())) {
+                keyStore.load(in, sslConfiguration.getKeyStorePassword() == null ? "".toCharArray() :
+                        sslConfiguration.getKeyStorePassword().toCharArray());
+            }
+            kmf = KeyManagerFactory.getInstance(sslConfiguration.getKeyManagerFactoryType());
+            kmf.init(keyStore, sslConfiguration.getKeyPassword() == null ? "".toCharArray() :
+                    sslConfiguration.getKeyPassword().toCharArray());
+        }
+        SSLContext ctx = SSLContext.getInstance(sslConfiguration.getSecurityProtocol());
+        ctx.init(kmf == null ? null : kmf.getKeyManagers(), tmf == null ? null : tmf.getTrustManagers(),
+                new SecureRandom());
+        return ctx;
+    }
+
+    /**
+     * Creates a new context, loading the key and trust stores every time it's called
+     *
+     * @param sslConfiguration the configuration
+     * @return a new context or null if one couldn't be created
+     */
     public static SSLContext getSSLSocket(SSLConfiguration sslConfiguration) {
 
         boolean useTrustStore = false;
@@ -20,9 +90,10 @@ public class SSLContextFactory {
         try {
             trustStore = KeyStore.getInstance(sslConfiguration.getTrustStoreType());
             if (sslConfiguration.getTrustStorePath() != null) {
-                trustStore.load(new FileInputStream(sslConfiguration.getTrustStorePath()),
-                        sslConfiguration.getTrustStorePassword() == null ? "".toCharArray() :
-                                sslConfiguration.getTrustStorePassword().toCharArray());
+                try (InputStream in = new FileInputStream(sslConfiguration.getTrustStorePath())) {
+                    trustStore.load(in, sslConfiguration.getTrustStorePassword() == null ? "".toCharArray() :
+                            sslConfiguration.getTrustStorePassword().toCharArray());
+                }
                 tmf = TrustManagerFactory.getInstance(sslConfiguration.getTrustManagerFactoryType());
                 tmf.init(trustStore);
                 useTrustStore = true;
@@ -39,9 +110,10 @@ public class SSLContextFactory {
         try {
             KeyStore clientKeyStore = KeyStore.getInstance(sslConfiguration.getKeyStoreType());
             if (sslConfiguration.getKeyStorePath() != null) {
-                clientKeyStore.load(new FileInputStream(sslConfiguration.getKeyStorePath()),
-                        sslConfiguration.getKeyStorePassword() == null ? "".toCharArray() :
-                                sslConfiguration.getKeyStorePassword().toCharArray());
+                try (InputStream in = new FileInputStream(sslConfiguration.getKeyStorePath())) {
+                    clientKeyStore.load(in, sslConfiguration.getKeyStorePassword() == null ? "".toCharArray() :
+                            sslConfiguration.getKeyStorePassword().toCharArray());
+                }
                 kmf = KeyManagerFactory.getInstance(sslConfiguration.getKeyManagerFactoryType());
                 kmf.init(clientKeyStore, sslConfiguration.getKeyPassword() == null ? "".toCharArray() :
                         sslConfiguration.getKeyPassword().toCharArray());
@@ -0,0 +1,83 @@
+package io.higgs.core.reflect.invoke;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * A rough comparison of the invoker strategies, kept with the tests so it isn't part of the core jar. Run with
+ * <pre>
+ * mvn -pl core test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=io.higgs.core.reflect.invoke.InvokerBenchmark -Dexec.args=[iterations]
+ * </pre>
+ * Each strategy is warmed up before it is timed. The numbers are only useful relative to each other.
+ */
+public final class InvokerBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(InvokerBenchmark.class);
+
+    private InvokerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        Method method = Target.class.getMethod("add", int.class, String.class);
+        Target target = new Target();
+        Object[] params = {1, "a"};
+
+        InvokerFactory[] factories = Invokers.isJavassistAvailable()
+                ? new InvokerFactory[]{
+                new ReflectionInvokerFactory(), new MethodHandleInvokerFactory(), new JavassistInvokerFactory()}
+                : new InvokerFactory[]{new ReflectionInvokerFactory(), new MethodHandleInvokerFactory()};
+        for (InvokerFactory factory : factories) {
+            Invoker invoker;
+            Instantiator instantiator;
+            try {
+                invoker = factory.invoker(method);
+                instantiator = factory.instantiator(Target.class);
+            } catch (IllegalArgumentException e) {
+                log.info(String.format("%1$-30s unavailable: %2$s", factory.getClass().getSimpleName(),
+                        e.getCause() != null ? e.getCause() : e));
+                continue;
+            }
+            run(invoker, target, params, iterations);
+            create(instantiator, iterations);
+            long start = System.nanoTime();
+            long sink = run(invoker, target, params, iterations);
+            long invokeTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            sink += create(instantiator, iterations);
+            long createTime = System.nanoTime() - start;
+            log.info(String.format("%1$-30s invoke %2$8.2f ns/op   new %3$8.2f ns/op   (%4$d)",
+                    factory.getClass().getSimpleName(), (double) invokeTime / iterations,
+                    (double) createTime / iterations, sink));
+        }
+    }
+
+    private static long run(Invoker invoker, Target target, Object[] params, int iterations)
+            throws InvocationTargetException {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += (Integer) invoker.invoke(target, params);
+        }
+        return sink;
+    }
+
+    private static long create(Instantiator instantiator, int iterations) throws InstantiationException {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += instantiator.newInstance().hashCode() & 1;
+        }
+        return sink;
+    }
+
+    public static class Target {
+        private int count;
+
+        public int add(int n, String s) {
+            count += n + s.length();
+            return count;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package io.higgs.core.ssl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.util.Arrays;
+
+/**
+ * Compares the per connection cost of building a new server {@link SSLContext} for every connection, as
+ * {@link SSLContextFactory#getSSLSocket(SSLConfiguration)} does, with the shared context from
+ * {@link SSLContextFactory#getServerContext(SSLConfiguration)}, including a full in memory handshake.
+ * With the shared context clients which reconnect can resume their session.
+ * <p/>
+ * The server uses the self signed certificate in the test keystore, ssl-benchmark.jks, and the client only trusts
+ * that certificate. Kept with the tests so it isn't part of the core jar, run with
+ * <pre>
+ * mvn -pl core test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=io.higgs.core.ssl.SSLHandshakeBenchmark -Dexec.args=[connections]
+ * </pre>
+ */
+public final class SSLHandshakeBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(SSLHandshakeBenchmark.class);
+    private static final String KEYSTORE = "/ssl-benchmark.jks";
+    private static final String PASSWORD = "higgs-benchmark";
+
+    private SSLHandshakeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        SSLConfiguration config = new SSLConfiguration();
+        config.setKeyStorePath(new File(SSLHandshakeBenchmark.class.getResource(KEYSTORE).toURI()).getPath());
+        config.setKeyStorePassword(PASSWORD);
+        config.setKeyPassword(PASSWORD);
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+
+        //trust the benchmark's own certificate and nothing else
+        KeyStore pinned = KeyStore.getInstance("JKS");
+        try (InputStream in = SSLHandshakeBenchmark.class.getResourceAsStream(KEYSTORE)) {
+            pinned.load(in, PASSWORD.toCharArray());
+        }
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(pinned);
+        SSLContext client = SSLContext.getInstance("TLS");
+        client.init(null, tmf.getTrustManagers(), null);
+
+        run("new context per connection", config, client, connections, false);
+        run("shared context", config, client, connections, true);
+        //measure again now that both paths are warm
+        long perConnection = run("new context per connection", config, client, connections, false);
+        long shared = run("shared context", config, client, connections, true);
+        log.info(String.format("shared context is %.1fx faster", (double) perConnection / shared));
+    }
+
+    private static long run(String name, SSLConfiguration config, SSLContext client, int connections,
+                            boolean shared) throws SSLException {
+        int resumed = 0;
+        byte[] lastId = new byte[0];
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            SSLContext server = shared ? SSLContextFactory.getServerContext(config)
+                    : SSLContextFactory.getSSLSocket(config);
+            SSLEngine serverEngine = server.createSSLEngine();
+            serverEngine.setUseClientMode(false);
+            //same peer host and port each time so the client offers its cached session
+            SSLEngine clientEngine = client.createSSLEngine("localhost", 8443);
+            clientEngine.setUseClientMode(true);
+            //TLS 1.3 resumes with tickets sent after the handshake, 1.2 session ids make resumption easy to see
+            clientEngine.setEnabledProtocols(new String[]{"TLSv1.2"});
+            handshake(clientEngine, serverEngine);
+            byte[] id = clientEngine.getSession().getId();
+            if (id.length > 0 && Arrays.equals(id, lastId)) {
+                resumed++;
+            }
+            lastId = id;
+        }
+        long time = System.nanoTime() - start;
+        log.info(String.format("%1$-28s %2$8.3f ms/connection, %3$d of %4$d sessions resumed", name,
+                time / 1e6 / connections, resumed, connections));
+        return time;
+    }
+
+    private static void handshake(SSLEngine client, SSLEngine server) throws SSLException {
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer toServer = ByteBuffer.allocate(client.getSession().getPacketBufferSize());
+        ByteBuffer toClient = ByteBuffer.allocate(server.getSession().getPacketBufferSize());
+        ByteBuffer clientApp = ByteBuffer.allocate(client.getSession().getApplicationBufferSize());
+        ByteBuffer serverApp = ByteBuffer.allocate(server.getSession().getApplicationBufferSize());
+        client.beginHandshake();
+        server.beginHandshake();
+        for (int i = 0; i < 1000 && !(finished(client) && finished(server)); i++) {
+            client.wrap(empty, toServer);
+            runTasks(client);
+            server.wrap(empty, toClient);
+            runTasks(server);
+            toServer.flip();
+            toClient.flip();
+            client.unwrap(toClient, clientApp);
+            runTasks(client);
+            server.unwrap(toServer, serverApp);
+            runTasks(server);
+            toServer.compact();
+            toClient.compact();
+        }
+        if (!finished(client) || !finished(server)) {
+            throw new SSLException("Handshake did not complete");
+        }
+    }
+
+    private static boolean finished(SSLEngine engine) {
+        SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+        return status == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+                || status == SSLEngineResult.HandshakeStatus.FINISHED;
+    }
+
+    private static void runTasks(SSLEngine engine) {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+}
@@ -52,5 +52,6 @@ public class EventServer extends HiggsServer {
 
     public <A> void registerMethod(FunctionEventMethod<A> method) {
         methods.add(method);
+        routes.add(method);
     }
 }
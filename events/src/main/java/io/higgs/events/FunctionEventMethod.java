@@ -29,6 +29,12 @@ public class FunctionEventMethod<A> extends EventMethod {
         }
     }
 
+    @Override
+    public boolean isIndexable() {
+        //the event name is not a resource path
+        return false;
+    }
+
     //won't use normal dependency injection because it only supports 1 parameter
     public Object invoke(ChannelHandlerContext ctx, String path, Object msg, Object[] params)
             throws InvocationTargetException, IllegalAccessException, InstantiationException {
@@ -0,0 +1,43 @@
+package io.higgs.http.server;
+
+/**
+ * Reads the preferences in an Accept-Encoding header, see RFC 7231
+ */
+public final class AcceptEncoding {
+    private AcceptEncoding() {
+    }
+
+    /**
+     * @param header the value of an Accept-Encoding header e.g. gzip;q=1.0, br, *;q=0
+     * @param coding the content coding to look for e.g. gzip
+     * @return the quality the client gave the coding, from * if the coding isn't listed, 0 if it isn't acceptable
+     */
+    public static float quality(String header, String coding) {
+        if (header == null) {
+            return 0;
+        }
+        float any = 0;
+        for (String item : header.split(",")) {
+            String[] parts = item.split(";");
+            String name = parts[0].trim();
+            float q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase(coding)) {
+                return q;
+            }
+            if (name.equals("*")) {
+                any = q;
+            }
+        }
+        return any;
+    }
+}
@@ -1,5 +1,8 @@
 package io.higgs.http.server;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.higgs.core.PathMatch;
 import io.higgs.core.ResourcePath;
 import io.higgs.core.reflect.ReflectionUtil;
 import io.higgs.http.server.params.FormFiles;
@@ -12,8 +15,13 @@ import io.higgs.http.server.params.QueryParams;
 import io.higgs.http.server.params.RequiredParam;
 import io.higgs.http.server.params.ValidationResult;
 import io.higgs.http.server.protocol.HttpMethod;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.channel.ChannelHandlerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.channels.Channel;
 import java.util.List;
 
@@ -21,22 +29,21 @@ import java.util.List;
  * Inspect the provided method parameters and substitute supported types as parameters where necessary
  * The following can be injected:
  * {@link HttpRequest},{@link FormFiles},{@link HttpFile},{@link FormParams},
- * {@link HttpCookie},{@link QueryParams},{@link HttpSession},{@link ResourcePath}
+ * {@link HttpCookie},{@link QueryParams},{@link HttpSession},{@link ResourcePath},{@link PathMatch},
+ * {@link RequestBody} and {@link io.higgs.http.server.params.JsonBody} parameters
  *
  * @author Courtney Robinson <courtney@crlog.info>
  */
 public class DefaultParamInjector implements ParamInjector {
+    private Logger log = LoggerFactory.getLogger(getClass());
+
     @Override
     public Object[] injectParams(HttpMethod method, HttpRequest request, HttpResponse res, ChannelHandlerContext ctx,
                                  Object[] args) {
         MethodParam[] params = method.getParams();
 
-        ResourcePath path = method.path();
-        ResourcePath.Component[] components = new ResourcePath.Component[0];
-        //@template annotation is optional
-        if (path != null) {
-            components = path.getComponents();
-        }
+        //values extracted from the request's URI when the method was matched
+        PathMatch match = request.getPathMatch();
         ValidationResult result = new ValidationResult();
         method.setValidationResult(result);
         for (int i = 0; i < params.length; i++) {
@@ -49,12 +56,14 @@ public class DefaultParamInjector implements ParamInjector {
                 continue;
             }
             Object o;
-            if (param.isNamed()) {
+            if (param.isJsonBody()) {
+                o = extractJsonBody(param, request);
+            } else if (param.isNamed()) {
                 //process annotations, i.e. the named parameters
-                o = processAnnotations(method, request, param, params, path, components, ctx);
+                o = processAnnotations(method, request, param, params, match, ctx);
             } else {
                 //process the non-named parameters
-                o = processClasses(method, request, res, param, params, path, components, ctx);
+                o = processClasses(method, request, res, param, params, match, ctx);
             }
             if (param.isValidationRequired()) {
                 boolean valid = param.getValidator().isValid(o);
@@ -77,12 +86,11 @@ public class DefaultParamInjector implements ParamInjector {
     /**
      * The following can be injected:
      * {@link HttpRequest},{@link FormFiles},{@link FormParams},
-     * {@link HttpCookies},{@link QueryParams},{@link HttpSession},{@link ResourcePath},
-     * {@link ChannelHandlerContext} ,{@link Channel}
+     * {@link HttpCookies},{@link QueryParams},{@link HttpSession},{@link ResourcePath},{@link PathMatch},
+     * {@link ChannelHandlerContext} ,{@link Channel},{@link RequestBody}
      */
     private Object processClasses(HttpMethod method, HttpRequest request, HttpResponse res, MethodParam param,
-                                  MethodParam[] params, ResourcePath path, ResourcePath.Component[] components,
-                                  ChannelHandlerContext ctx) {
+                                  MethodParam[] params, PathMatch match, ChannelHandlerContext ctx) {
         if (io.netty.handler.codec.http.HttpRequest.class.isAssignableFrom(param.getParameterType())) {
             return request;
         } else if (FormFiles.class.isAssignableFrom(param.getParameterType())) {
@@ -98,11 +106,15 @@ public class DefaultParamInjector implements ParamInjector {
         } else if (HttpSession.class.isAssignableFrom(param.getParameterType())) {
             return request.getSession();
         } else if (ResourcePath.class.isAssignableFrom(param.getParameterType())) {
-            return path;
+            return method.path();
+        } else if (PathMatch.class.isAssignableFrom(param.getParameterType())) {
+            return match;
         } else if (ChannelHandlerContext.class.isAssignableFrom(param.getParameterType())) {
             return ctx;
         } else if (Channel.class.isAssignableFrom(param.getParameterType())) {
             return ctx.channel();
+        } else if (RequestBody.class.isAssignableFrom(param.getParameterType())) {
+            return request.getStreamingBody();
         } else {
 //todo add support for custom parameter provider (i.e. allow anything to be injected if registered)
             return null;
@@ -110,8 +122,7 @@ public class DefaultParamInjector implements ParamInjector {
     }
 
     private Object processAnnotations(HttpMethod method, HttpRequest request, MethodParam param, MethodParam[] params,
-                                      ResourcePath path, ResourcePath.Component[] components,
-                                      ChannelHandlerContext ctx) {
+                                      PathMatch match, ChannelHandlerContext ctx) {
         if (param.isCookieParam()) {
             return extractCookieParam(param, request);
         } else if (param.isHeaderParam()) {
@@ -121,23 +132,48 @@ public class DefaultParamInjector implements ParamInjector {
         } else if (param.isQueryParam()) {
             return extractQueryParam(param, request);
         } else if (param.isPathParam()) {
-            return extractPathParam(param, path);
+            return extractPathParam(param, match);
         } else if (param.isSessionParam()) {
             return request.getSession() == null ? null : request.getSession().get(param.getName());
         }
         return null;
     }
 
-    protected Object extractPathParam(MethodParam param, ResourcePath path) {
-        ResourcePath.Component component = path.getComponent(param.getName());
+    /**
+     * Read the body straight from the request's buffer, which isn't consumed
+     *
+     * @return the body as the param's type or null if there isn't one
+     * @throws WebApplicationException with 400 if it can't be read as the param's type
+     */
+    protected Object extractJsonBody(MethodParam param, HttpRequest request) {
+        ByteBuf body = request.content();
+        if (body == null || !body.isReadable()) {
+            return null;
+        }
+        ObjectReader reader = param.getJsonReader();
+        if (reader == null) {
+            //at worst two requests both make one, either is fine to keep
+            ObjectMapper mapper = request.getConfig().getJsonMapper();
+            reader = mapper.reader(mapper.getTypeFactory().constructType(param.getJsonBodyType()));
+            param.setJsonReader(reader);
+        }
+        try {
+            return reader.readValue(new ByteBufInputStream(body.duplicate()));
+        } catch (IOException e) {
+            //the client's mistake, not worth a stack trace
+            log.debug(String.format("Invalid JSON body for %s: %s", request.getUri(), e.getMessage()));
+            throw new WebApplicationException(HttpStatus.BAD_REQUEST, request, e);
+        }
+    }
+
+    protected Object extractPathParam(MethodParam param, PathMatch match) {
+        String value = match == null ? null : match.get(param.getName());
         if (String.class.isAssignableFrom(param.getParameterType())) {
-            if (component != null) {
-                return component.getRuntimeValue();
-            }
+            return value;
         } else {
             if (ReflectionUtil.isNumeric(param.getParameterType())) {
                 //if param is a number then try to handle with NumberType.parseType
-                return extractNumberParam(param, component == null ? null : component.getRuntimeValue());
+                return extractNumberParam(param, value);
             }
         }
         return null;
@@ -0,0 +1,56 @@
+package io.higgs.http.server;
+
+import io.higgs.http.server.config.HttpConfig;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaders;
+
+/**
+ * Compresses responses with gzip or deflate, whichever the request's Accept-Encoding prefers.
+ * <p/>
+ * Full responses are compressed when they have at least {@link HttpConfig#compression_min_size} bytes and their
+ * content type isn't one of {@link HttpConfig#compression_excluded_types}. A response sent in parts is only
+ * compressed when it's Transfer-Encoding: chunked, its parts are then {@link io.netty.handler.codec.http
+ * .HttpContent}s e.g. from a {@link io.higgs.http.server.transformers.StreamingWriter}. Parts written with a known
+ * Content-Length may be file regions or buffers which aren't HttpContent, e.g. static files which
+ * {@link io.higgs.http.server.transformers.StaticFileWriter} compresses itself, so they're sent as they are.
+ */
+public class HttpCompressor extends HttpContentCompressor {
+    private final int minSize;
+    private final String[] excludedTypes;
+
+    public HttpCompressor(HttpConfig conf) {
+        super(conf.compression_level);
+        minSize = conf.compression_min_size;
+        excludedTypes = conf.compression_excluded_types.split(",");
+    }
+
+    @Override
+    protected Result beginEncode(io.netty.handler.codec.http.HttpResponse res, String acceptEncoding)
+            throws Exception {
+        if (!isCompressible(res)) {
+            return null;
+        }
+        return super.beginEncode(res, acceptEncoding);
+    }
+
+    protected boolean isCompressible(io.netty.handler.codec.http.HttpResponse res) {
+        if (res instanceof FullHttpResponse) {
+            if (((FullHttpResponse) res).content().readableBytes() < minSize) {
+                return false;
+            }
+        } else if (HttpHeaders.isContentLengthSet(res) || !HttpHeaders.isTransferEncodingChunked(res)) {
+            return false;
+        }
+        String type = res.headers().get(HttpHeaders.Names.CONTENT_TYPE);
+        if (type != null) {
+            for (String excluded : excludedTypes) {
+                excluded = excluded.trim();
+                if (!excluded.isEmpty() && type.startsWith(excluded)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -1,5 +1,6 @@
 package io.higgs.http.server;
 
+import io.higgs.core.PathMatch;
 import io.higgs.core.ResourcePath;
 import io.higgs.http.server.params.FormFiles;
 import io.higgs.http.server.params.FormParams;
@@ -45,7 +46,7 @@ public class HttpRequest extends DefaultHttpRequest {
     private final HttpCookies cookies = new HttpCookies();
     private final DateTime createdAt = new DateTime();
     private Logger log = LoggerFactory.getLogger(getClass());
-    private ResourcePath path;
+    private PathMatch pathMatch;
     private List<MediaType> mediaTypes = new ArrayList<>();
     private boolean newSession;
     private String sessionId;
@@ -57,6 +58,7 @@ public class HttpRequest extends DefaultHttpRequest {
     private static final AttributeKey<String> sessionAttr = new AttributeKey<>(SID + "-attr");
     private ByteBuf content = Unpooled.buffer(0);
     private HttpCookie sessionCookie;
+    private RequestBody streamingBody;
 
     /**
      * Creates a new instance.
@@ -174,12 +176,22 @@ public class HttpRequest extends DefaultHttpRequest {
         return HttpMethod.OPTIONS.name().equalsIgnoreCase(getMethod().name());
     }
 
+    /**
+     * @return the resource path of the method which matched this request or null
+     */
     public ResourcePath getPath() {
-        return path;
+        return pathMatch == null ? null : pathMatch.path();
+    }
+
+    /**
+     * @return the values extracted from this request's URI by the method which matched it or null
+     */
+    public PathMatch getPathMatch() {
+        return pathMatch;
     }
 
-    public void setPath(final ResourcePath path) {
-        this.path = path;
+    public void setPathMatch(final PathMatch pathMatch) {
+        this.pathMatch = pathMatch;
     }
 
     public HttpCookie getCookie(String name) {
@@ -262,7 +274,7 @@ public class HttpRequest extends DefaultHttpRequest {
         return "HttpRequest{" +
                 "newSession=" + newSession +
                 ", mediaTypes=" + mediaTypes.size() +
-                ", path=" + path +
+                ", path=" + pathMatch +
                 ", cookies=" + cookies.size() +
                 ", form=" + form.size() +
                 ", files=" + files.size() +
@@ -312,4 +324,23 @@ public class HttpRequest extends DefaultHttpRequest {
     public ByteBuf content() {
         return content;
     }
+
+    /**
+     * @param content the body received so far, the caller remains responsible for releasing it
+     */
+    public void setContent(ByteBuf content) {
+        this.content = content;
+    }
+
+    /**
+     * @return the body as it's received if the method takes a {@link io.higgs.http.server.params.StreamingBody},
+     *         {@link #content()} is empty in that case
+     */
+    public RequestBody getStreamingBody() {
+        return streamingBody;
+    }
+
+    public void setStreamingBody(RequestBody streamingBody) {
+        this.streamingBody = streamingBody;
+    }
 }
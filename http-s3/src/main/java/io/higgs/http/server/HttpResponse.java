@@ -24,7 +24,8 @@ import java.util.Map;
 public class HttpResponse extends DefaultFullHttpResponse {
     private Map<String, HttpCookie> newCookies = new HashMap<>();
     private ManagedWriter managedWriter;
-    private ByteBuf content = Unpooled.buffer();
+    //always set by the constructor, an initial value here would be a buffer allocated and thrown away
+    private ByteBuf content;
     private HttpResponseStatus status = HttpResponseStatus.OK;
     private HttpVersion version = HttpVersion.HTTP_1_1;
     private HttpHeaders headers = new DefaultHttpHeaders();
@@ -32,7 +33,7 @@ public class HttpResponse extends DefaultFullHttpResponse {
     private boolean redirect;
 
     public HttpResponse(HttpVersion version, HttpResponseStatus status, ByteBuf content) {
-        super(version, status);
+        super(version, status, content);
         this.version = version;
         this.status = status;
         this.content = content;
@@ -88,6 +89,35 @@ public class HttpResponse extends DefaultFullHttpResponse {
         return content;
     }
 
+    //reference counting follows content() so that writing the response releases the buffer it was written into,
+    //even after resetContent()
+    @Override
+    public int refCnt() {
+        return content.refCnt();
+    }
+
+    @Override
+    public FullHttpResponse retain() {
+        content.retain();
+        return this;
+    }
+
+    @Override
+    public FullHttpResponse retain(int increment) {
+        content.retain(increment);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return content.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return content.release(decrement);
+    }
+
     public void setCookies(final Map<String, HttpCookie> cookies) {
         this.newCookies.putAll(cookies);
     }
@@ -0,0 +1,113 @@
+package io.higgs.http.server;
+
+import io.higgs.http.server.transformers.JarFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An index of the public directory's entries in the jars on the class path, built once when it's created.
+ * Every jar with a public directory is opened once and kept open, shared by all requests, so serving an entry is a
+ * map lookup instead of opening and scanning the jar.
+ */
+public class JarIndex {
+    private static final Logger log = LoggerFactory.getLogger(JarIndex.class);
+    //jar:file:/app.jar!/public/index.html -> the entry in the shared ZipFile
+    private final Map<String, JarFile> entries = new HashMap<>();
+    private final List<ZipFile> jars = new ArrayList<>();
+
+    /**
+     * @param loader          the class loader whose jars are indexed
+     * @param publicDirectory the directory in the jars to index e.g. public
+     */
+    public JarIndex(ClassLoader loader, String publicDirectory) {
+        String dir = publicDirectory;
+        while (dir.startsWith("/")) {
+            dir = dir.substring(1);
+        }
+        while (dir.endsWith("/")) {
+            dir = dir.substring(0, dir.length() - 1);
+        }
+        Enumeration<URL> urls;
+        try {
+            urls = loader.getResources(dir);
+        } catch (IOException e) {
+            log.warn(String.format("Unable to find %s on the class path, files won't be served from jars", dir), e);
+            return;
+        }
+        while (urls.hasMoreElements()) {
+            String url = urls.nextElement().toExternalForm();
+            int separator = url.indexOf("!/");
+            if (!url.startsWith("jar:") || separator < 0) {
+                continue;
+            }
+            try {
+                index(url.substring(0, separator + 2), new File(new URI(url.substring(4, separator))), dir + "/");
+            } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+                log.warn(String.format("Unable to index %s, its files won't be served", url), e);
+            }
+        }
+    }
+
+    private void index(String prefix, File path, String dir) throws IOException {
+        ZipFile zip = new ZipFile(path);
+        int count = 0;
+        Enumeration<? extends ZipEntry> it = zip.entries();
+        while (it.hasMoreElements()) {
+            ZipEntry entry = it.nextElement();
+            if (!entry.isDirectory() && entry.getName().startsWith(dir)) {
+                entries.put(prefix + entry.getName(), new JarFile(zip, entry));
+                count++;
+            }
+        }
+        if (count == 0) {
+            zip.close();
+        } else {
+            jars.add(zip);
+            log.info(String.format("Indexed %s public files in %s", count, path));
+        }
+    }
+
+    /**
+     * @param url the class path URL of an entry e.g. jar:file:/app.jar!/public/index.html
+     * @return a new {@link JarFile} for the entry backed by the shared jar or null if the jar has no such file
+     */
+    public JarFile get(String url) {
+        JarFile file = entries.get(url);
+        return file == null ? null : new JarFile(file.getZip(), file.getEntry());
+    }
+
+    /**
+     * @return true if no files were found in any jar
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Close the shared jars, entries can't be served afterwards
+     */
+    public void close() {
+        for (ZipFile zip : jars) {
+            try {
+                zip.close();
+            } catch (IOException e) {
+                log.debug("", e);
+            }
+        }
+        jars.clear();
+        entries.clear();
+    }
+}
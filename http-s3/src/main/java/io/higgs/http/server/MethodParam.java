@@ -1,7 +1,10 @@
 package io.higgs.http.server;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import io.higgs.http.server.params.Validator;
 
+import java.lang.reflect.Type;
+
 /**
  * @author Courtney Robinson <courtney@crlog.info>
  */
@@ -23,6 +26,11 @@ public class MethodParam {
      */
     private int position;
     private boolean sessionParam;
+    /**
+     * The generic type of a {@link io.higgs.http.server.params.JsonBody} parameter, null if it isn't one
+     */
+    private Type jsonBodyType;
+    private volatile ObjectReader jsonReader;
 
     public String getName() {
         return name;
@@ -130,5 +138,28 @@ public class MethodParam {
     public boolean isSessionParam() {
         return sessionParam;
     }
+
+    public boolean isJsonBody() {
+        return jsonBodyType != null;
+    }
+
+    public Type getJsonBodyType() {
+        return jsonBodyType;
+    }
+
+    public void setJsonBodyType(Type jsonBodyType) {
+        this.jsonBodyType = jsonBodyType;
+    }
+
+    /**
+     * @return the reader for {@link #getJsonBodyType()} made by the first request, null until then
+     */
+    public ObjectReader getJsonReader() {
+        return jsonReader;
+    }
+
+    public void setJsonReader(ObjectReader jsonReader) {
+        this.jsonReader = jsonReader;
+    }
 }
 
@@ -0,0 +1,366 @@
+package io.higgs.http.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A request body handed to a method as it arrives instead of after the whole body has been received, see
+ * {@link io.higgs.http.server.params.StreamingBody}. The method is invoked as soon as the request's headers are
+ * read and consumes the body either by setting a {@link Listener} or by reading {@link #getInputStream()}.
+ * <p/>
+ * At most {@link io.higgs.http.server.config.HttpConfig#streaming_body_buffer_size} bytes are held waiting to be
+ * consumed, once that many are waiting the server stops reading from the connection until the consumer catches up,
+ * so a body of any size flows through with bounded memory.
+ * <pre>
+ * {@code
+ * @PUT
+ * @method("upload/{name}")
+ * @execution(ExecutionMode.POOL)
+ * public void upload(@StreamingBody RequestBody body, @PathParam("name") String name) throws IOException {
+ *     try (InputStream in = body.getInputStream()) {
+ *         store.put(name, in);
+ *     }
+ * }
+ * }
+ * </pre>
+ */
+public class RequestBody {
+    private static final Object END = new Object();
+    private final BlockingQueue<Object> chunks = new LinkedBlockingQueue<>();
+    private final AtomicLong buffered = new AtomicLong();
+    private final Channel channel;
+    private final long highWaterMark;
+    private final long lowWaterMark;
+    private final Stream in = new Stream();
+    private volatile Listener listener;
+    private volatile boolean streamTaken;
+    private volatile boolean paused;
+    private volatile boolean ended;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private volatile long received;
+    //the following are only used on the event loop
+    private boolean stalled;
+    private boolean dispatching;
+
+    /**
+     * @param maxBuffered how many bytes can be waiting to be consumed before reads from the channel are paused
+     */
+    public RequestBody(Channel channel, int maxBuffered) {
+        if (maxBuffered < 1) {
+            throw new IllegalArgumentException("maxBuffered must be at least 1");
+        }
+        this.channel = channel;
+        highWaterMark = maxBuffered;
+        lowWaterMark = maxBuffered / 2;
+    }
+
+    /**
+     * Receive the body as it arrives. The listener is called on the channel's event loop and must not block, chunks
+     * received before it was set are passed to it first
+     *
+     * @throws IllegalStateException if {@link #getInputStream()} is being used
+     */
+    public void setListener(Listener listener) {
+        if (streamTaken) {
+            throw new IllegalStateException("The body is already being read from its InputStream");
+        }
+        this.listener = listener;
+        scheduleDispatch();
+    }
+
+    /**
+     * Stop passing chunks to the {@link Listener} until {@link #resume()}. Chunks received while paused are held and
+     * once enough are held reads from the connection are paused too
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * Continue passing chunks to the {@link Listener}
+     */
+    public void resume() {
+        paused = false;
+        scheduleDispatch();
+    }
+
+    /**
+     * Read the body as it arrives. Reads block until more of the body is received so this can't be used by a method
+     * which is invoked on the event loop, see {@link io.higgs.core.ExecutionMode}. Closing the stream before the end
+     * discards the rest of the body.
+     *
+     * @throws IllegalStateException if a {@link Listener} has been set
+     */
+    public InputStream getInputStream() {
+        if (listener != null) {
+            throw new IllegalStateException("The body is already being passed to a listener");
+        }
+        streamTaken = true;
+        return in;
+    }
+
+    /**
+     * @return true once the whole body has been received, some of it may not have been consumed yet
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * @return the number of bytes of the body received so far
+     */
+    public long getBytesReceived() {
+        return received;
+    }
+
+    /**
+     * @return true if a listener has been set or the input stream taken
+     */
+    public boolean isConsumed() {
+        return listener != null || streamTaken;
+    }
+
+    /**
+     * Add the next part of the body, called on the event loop by the handler reading the request
+     */
+    public void offer(ByteBuf chunk) {
+        int size = chunk.readableBytes();
+        if (closed || ended || size == 0) {
+            return;
+        }
+        received += size;
+        long waiting = buffered.addAndGet(size);
+        chunks.add(chunk.retain());
+        if (closed) {
+            //closed while adding, nothing will take it
+            drain();
+            return;
+        }
+        if (waiting >= highWaterMark && !stalled) {
+            stalled = true;
+            channel.config().setAutoRead(false);
+        }
+        dispatch();
+    }
+
+    /**
+     * Called on the event loop once the last of the body has been offered. Reads are left to the caller from here
+     */
+    public void end() {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        stalled = false;
+        chunks.add(END);
+        dispatch();
+    }
+
+    /**
+     * The body can't be completed e.g. the connection was closed, the consumer is told once it's taken the chunks
+     * received before this
+     */
+    public void fail(Throwable cause) {
+        if (ended) {
+            return;
+        }
+        failure = cause;
+        end();
+    }
+
+    /**
+     * Discard whatever hasn't been consumed and anything received from here on
+     */
+    public void close() {
+        closed = true;
+        drain();
+    }
+
+    private void drain() {
+        Object chunk;
+        while ((chunk = chunks.poll()) != null) {
+            if (chunk != END) {
+                taken((ByteBuf) chunk);
+                ((ByteBuf) chunk).release();
+            }
+        }
+    }
+
+    /**
+     * Account for a chunk leaving the queue, once enough has been taken reading is resumed
+     */
+    private void taken(ByteBuf chunk) {
+        int size = chunk.readableBytes();
+        long left = buffered.addAndGet(-size);
+        if (left <= lowWaterMark && left + size > lowWaterMark) {
+            channel.eventLoop().execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (stalled && buffered.get() <= lowWaterMark) {
+                        stalled = false;
+                        channel.config().setAutoRead(true);
+                    }
+                }
+            });
+        }
+    }
+
+    private void scheduleDispatch() {
+        if (channel.eventLoop().inEventLoop()) {
+            dispatch();
+        } else {
+            channel.eventLoop().execute(new Runnable() {
+                @Override
+                public void run() {
+                    dispatch();
+                }
+            });
+        }
+    }
+
+    private void dispatch() {
+        Listener l = listener;
+        if (l == null || dispatching) {
+            return;
+        }
+        //a listener can resume() from inside onChunk which would otherwise dispatch recursively
+        dispatching = true;
+        try {
+            Object chunk;
+            while (!paused && !closed && (chunk = chunks.poll()) != null) {
+                if (chunk == END) {
+                    if (failure == null) {
+                        l.onEnd();
+                    } else {
+                        l.onError(failure);
+                    }
+                    continue;
+                }
+                ByteBuf buf = (ByteBuf) chunk;
+                taken(buf);
+                try {
+                    l.onChunk(buf);
+                } finally {
+                    buf.release();
+                }
+            }
+        } catch (Throwable t) {
+            close();
+            l.onError(t);
+        } finally {
+            dispatching = false;
+        }
+    }
+
+    /**
+     * Receives a streamed request body on the channel's event loop
+     */
+    public interface Listener {
+        /**
+         * @param chunk the next part of the body, it's released once this returns so retain it to keep it longer.
+         *              If this throws the rest of the body is discarded and {@link #onError(Throwable)} called
+         */
+        void onChunk(ByteBuf chunk) throws Exception;
+
+        /**
+         * The whole body has been received
+         */
+        void onEnd() throws Exception;
+
+        /**
+         * The body is incomplete, e.g. the client disconnected
+         */
+        void onError(Throwable cause);
+    }
+
+    private class Stream extends InputStream {
+        private ByteBuf current;
+        private boolean finished;
+
+        @Override
+        public int read() throws IOException {
+            ByteBuf buf = current();
+            if (buf == null) {
+                return -1;
+            }
+            int b = buf.readUnsignedByte();
+            releaseIfRead();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuf buf = current();
+            if (buf == null) {
+                return -1;
+            }
+            int n = Math.min(len, buf.readableBytes());
+            buf.readBytes(b, off, n);
+            releaseIfRead();
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return current == null ? 0 : current.readableBytes();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.release();
+                current = null;
+            }
+            finished = true;
+            RequestBody.this.close();
+        }
+
+        private ByteBuf current() throws IOException {
+            if (current != null || finished) {
+                return current;
+            }
+            if (closed) {
+                throw new IOException("Request body has been closed");
+            }
+            if (channel.eventLoop().inEventLoop()) {
+                throw new IllegalStateException("Reading a streamed body on the event loop would block it, " +
+                        "use a Listener or invoke the method off the event loop");
+            }
+            Object chunk;
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the request body");
+            }
+            if (chunk == END) {
+                finished = true;
+                if (failure != null) {
+                    throw new IOException("Request body is incomplete", failure);
+                }
+                return null;
+            }
+            current = (ByteBuf) chunk;
+            taken(current);
+            return current;
+        }
+
+        private void releaseIfRead() {
+            if (!current.isReadable()) {
+                current.release();
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.higgs.http.server;
+
+import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.ZipEntry;
+
+/**
+ * What a request for a static file resolved to, kept by {@link StaticFileCache} so that serving the same path
+ * again doesn't have to go back to the file system.
+ */
+public class StaticFile {
+    public enum Kind {
+        /**
+         * A readable file, for a directory with an index file this is the index file
+         */
+        FILE,
+        /**
+         * A directory without an index file, only when directory listing is enabled
+         */
+        DIRECTORY,
+        /**
+         * A resource inside a jar on the class path, see {@link #getUrl()}
+         */
+        JAR,
+        /**
+         * Nothing can be served for the path
+         */
+        MISSING
+    }
+
+    public static final StaticFile MISSING = new StaticFile(Kind.MISSING, null, null, -1, -1, null, null);
+    private final Kind kind;
+    private final File file;
+    private final String url;
+    private final long size;
+    private final long lastModified;
+    private final String contentType;
+    private final String etag;
+
+    public StaticFile(Kind kind, File file, String url, long size, long lastModified, String contentType,
+                      String etag) {
+        this.kind = kind;
+        this.file = file;
+        this.url = url;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.contentType = contentType;
+        this.etag = etag;
+    }
+
+    /**
+     * Generate a strong entity tag for a file from its size, modified time and, where the file system has one,
+     * its file key e.g. device and inode on unix. A file replaced by another with the same size and modified time
+     * still gets a different tag
+     *
+     * @return the quoted tag e.g. "1a2b3c-400-14f3e5a2b10"
+     */
+    public static String etag(BasicFileAttributes attrs) {
+        StringBuilder tag = new StringBuilder().append('"');
+        Object key = attrs.fileKey();
+        if (key != null) {
+            tag.append(Integer.toHexString(key.hashCode())).append('-');
+        }
+        return tag.append(Long.toHexString(attrs.size()))
+                .append('-')
+                .append(Long.toHexString(attrs.lastModifiedTime().toMillis()))
+                .append('"')
+                .toString();
+    }
+
+    /**
+     * Generate a strong entity tag for an entry in a jar from its CRC, size and modified time
+     *
+     * @return the quoted tag or null if the entry's CRC or size isn't known
+     */
+    public static String etag(ZipEntry entry) {
+        if (entry.getCrc() < 0 || entry.getSize() < 0) {
+            return null;
+        }
+        return "\"" + Long.toHexString(entry.getCrc()) + "-" + Long.toHexString(entry.getSize()) + "-"
+                + Long.toHexString(entry.getTime()) + "\"";
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the canonical file or directory or null for {@link Kind#JAR} and {@link Kind#MISSING}
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the class path URL of a {@link Kind#JAR} resource e.g. jar:file:/app.jar!/public/index.html
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return the size of the file in bytes when it was resolved, -1 if not a {@link Kind#FILE} or {@link Kind#JAR}
+     *         or if the size of a jar entry isn't known
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the file's modified time in milliseconds when it was resolved, -1 if not a {@link Kind#FILE} or
+     *         {@link Kind#JAR}
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return the content type of a {@link Kind#FILE} or {@link Kind#JAR}, from the files.custom_mime_types or the
+     *         default mime types
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the entity tag of a {@link Kind#FILE} or {@link Kind#JAR}, see {@link #etag(BasicFileAttributes)}
+     *         and {@link #etag(ZipEntry)}
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    @Override
+    public String toString() {
+        return "StaticFile{" +
+                "kind=" + kind +
+                ", file=" + file +
+                ", url='" + url + '\'' +
+                ", size=" + size +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
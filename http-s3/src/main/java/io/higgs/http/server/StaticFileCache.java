@@ -0,0 +1,391 @@
+package io.higgs.http.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.higgs.http.server.config.FilesConfig;
+import io.higgs.http.server.transformers.JarFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.activation.MimetypesFileTypeMap;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Resolves request paths to {@link StaticFile}s in the public directory and caches the result, including paths
+ * which don't resolve to anything so repeated requests for files which don't exist don't touch the disk either.
+ * <p/>
+ * Both caches are bounded by {@link FilesConfig#metadata_cache_size} and {@link FilesConfig#missing_cache_size}.
+ * Entries are invalidated by a {@link WatchService} on the public directory and all of its sub directories, if
+ * the directory can't be watched only entries in jars are cached, they can't change while the server is running.
+ * When the public directory is only on the class path, in jars, paths which don't exist are cached too.
+ */
+public class StaticFileCache {
+    private static final Logger log = LoggerFactory.getLogger(StaticFileCache.class);
+    private static final MimetypesFileTypeMap MIME_TYPES = new MimetypesFileTypeMap();
+    private final FilesConfig conf;
+    private final File base;
+    private final boolean canServe;
+    //false if the public directory is only in jars, nothing on disk can be served
+    private final boolean onDisk;
+    private final JarIndex jars;
+    private final Map<String, String> formats = new LinkedHashMap<>();
+    private final Cache<String, StaticFile> found;
+    private final Cache<String, StaticFile> missing;
+    //incremented on every invalidation so a resolution which raced with one isn't cached
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<WatchKey, Path> watched = new ConcurrentHashMap<>();
+    private volatile WatchService watcher;
+    private volatile boolean watching;
+
+    public StaticFileCache(FilesConfig conf) {
+        this.conf = conf;
+        File dir = StaticFileMethod.baseUri(conf.public_directory);
+        boolean exists = dir != null && dir.exists();
+        if (exists) {
+            try {
+                dir = dir.getCanonicalFile();
+            } catch (IOException e) {
+                log.debug("", e);
+            }
+        }
+        base = dir;
+        onDisk = exists;
+        jars = new JarIndex(Thread.currentThread().getContextClassLoader(), conf.public_directory);
+        canServe = exists || !jars.isEmpty();
+        if (!canServe) {
+            log.warn("Public files directory that is configured does not exist. Will not serve static files");
+        }
+        //htm,html -> text/html, json -> application/json, xml -> application/xml
+        for (Map.Entry<String, String> e : conf.custom_mime_types.entrySet()) {
+            for (String extension : e.getKey().split(",")) {
+                formats.put(extension, e.getValue());
+            }
+        }
+        found = CacheBuilder.newBuilder().maximumSize(Math.max(0, conf.metadata_cache_size)).build();
+        missing = CacheBuilder.newBuilder().maximumSize(Math.max(0, conf.missing_cache_size)).build();
+        if (exists && conf.metadata_cache_size > 0 && base.isDirectory()) {
+            watch();
+        }
+    }
+
+    /**
+     * @return the canonical public directory
+     */
+    public File getBase() {
+        return base;
+    }
+
+    /**
+     * @return false if the public directory doesn't exist
+     */
+    public boolean canServe() {
+        return canServe;
+    }
+
+    /**
+     * @param uri the sanitized path of the file relative to the working directory or class path,
+     *            starting with the public directory e.g. public/index.html
+     * @return what the path resolves to, {@link StaticFile#MISSING} if nothing can be served
+     */
+    public StaticFile get(String uri) {
+        return lookup(uri, null);
+    }
+
+    /**
+     * Find a variant of a file stored next to it e.g. index.html.gz for index.html
+     *
+     * @param file   a canonical file from {@link StaticFile#getFile()}
+     * @param suffix appended to the file's name e.g. .gz
+     * @return the sibling if it's a readable file, {@link StaticFile#MISSING} otherwise
+     */
+    public StaticFile sibling(File file, String suffix) {
+        StaticFile sibling = lookup(file.getPath() + suffix, new File(file.getPath() + suffix));
+        if (sibling.getKind() != StaticFile.Kind.FILE || !sibling.getFile().getName().endsWith(suffix)) {
+            return StaticFile.MISSING;
+        }
+        return sibling;
+    }
+
+    private StaticFile lookup(String key, File file) {
+        StaticFile resolved = found.getIfPresent(key);
+        if (resolved == null) {
+            resolved = missing.getIfPresent(key);
+        }
+        if (resolved != null) {
+            return resolved;
+        }
+        long gen = generation.get();
+        resolved = file == null ? resolve(key) : resolve(file);
+        if (!isCacheable(resolved)) {
+            return resolved;
+        }
+        Cache<String, StaticFile> cache = resolved.getKind() == StaticFile.Kind.MISSING ? missing : found;
+        cache.put(key, resolved);
+        if (generation.get() != gen) {
+            //something changed while resolving, what was found may already be out of date
+            cache.invalidate(key);
+        }
+        return resolved;
+    }
+
+    /**
+     * @return true if the resolution can be cached, files and directories on disk only can while they're watched
+     */
+    private boolean isCacheable(StaticFile resolved) {
+        switch (resolved.getKind()) {
+            case JAR:
+                return true;
+            case MISSING:
+                return watching || !onDisk;
+            default:
+                return watching;
+        }
+    }
+
+    /**
+     * @param url the URL of a {@link StaticFile.Kind#JAR} file, see {@link StaticFile#getUrl()}
+     * @return the entry in the shared, already open jar or null if it isn't in the index
+     */
+    public JarFile getJarFile(String url) {
+        return jars.get(url);
+    }
+
+    /**
+     * Remove everything cached
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        found.invalidateAll();
+        missing.invalidateAll();
+    }
+
+    /**
+     * Remove the cached entries affected by a change to the given file or directory
+     *
+     * @param changed the file or directory that was created, deleted or modified
+     * @param created true if the file was created or deleted, paths cached as missing may now resolve
+     */
+    public void invalidate(File changed, boolean created) {
+        generation.incrementAndGet();
+        File parent = changed.getParentFile();
+        String prefix = changed.getPath() + File.separator;
+        for (Iterator<StaticFile> it = found.asMap().values().iterator(); it.hasNext(); ) {
+            File file = it.next().getFile();
+            //the parent is cached if it's listed or if the change was to its index file
+            if (file != null && (file.equals(changed) || file.equals(parent) || file.getPath().startsWith(prefix))) {
+                it.remove();
+            }
+        }
+        if (created) {
+            missing.invalidateAll();
+        }
+    }
+
+    /**
+     * Stop watching the public directory and its watcher thread, files on disk aren't cached afterwards.
+     * The jars files are served from are closed too, nothing in them can be served afterwards
+     */
+    public void close() {
+        watching = false;
+        WatchService w = watcher;
+        if (w != null) {
+            try {
+                //the watcher thread exits when its take() fails
+                w.close();
+            } catch (IOException e) {
+                log.debug("", e);
+            }
+        }
+        jars.close();
+        clear();
+    }
+
+    protected StaticFile resolve(String uri) {
+        File file = null;
+        //check the classpath first
+        URL source = Thread.currentThread().getContextClassLoader().getResource(uri);
+        try {
+            if (source != null) {
+                //jar:file:/B:/dev/projects/Higgs/higgs-http-s3/target/higgs-http-3s-0.0.1-SNAPSHOT.jar
+                //!/public/default.html
+                String url = source.toExternalForm();
+                if (url.startsWith("jar:")) {
+                    JarFile jar = jars.get(url);
+                    if (jar != null) {
+                        ZipEntry entry = jar.getEntry();
+                        return new StaticFile(StaticFile.Kind.JAR, null, url, entry.getSize(), entry.getTime(),
+                                contentType(url), StaticFile.etag(entry));
+                    }
+                    //if we couldn't get it from the JAR continue anyway and see if it exists on disk
+                } else {
+                    file = new File(source.toURI());
+                    if (file.isHidden() || !file.exists()) {
+                        file = null;
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            log.debug("", e);
+        }
+        //if we couldn't load it from the class path then try to get it from disk
+        if (file == null) {
+            file = new File(uri);
+        }
+        return resolve(file);
+    }
+
+    /**
+     * @param file a file on disk, in the public directory or not
+     */
+    protected StaticFile resolve(File file) {
+        if (!file.isDirectory() && (file.isHidden() || !file.exists())) {
+            return StaticFile.MISSING;
+        }
+        try {
+            file = file.getCanonicalFile();
+        } catch (IOException e) {
+            log.debug("", e);
+            return StaticFile.MISSING;
+        }
+        //if its not a sub directory tell them no!
+        if (!isInBase(file)) {
+            return StaticFile.MISSING;
+        }
+        if (file.isDirectory()) {
+            //if index/default found then send it instead of listing directory
+            File index = new File(file, Paths.get(conf.index_file).getFileName().toString());
+            if (index.isFile() && !index.isHidden()) {
+                file = index;
+            } else if (conf.enable_directory_listing) {
+                return new StaticFile(StaticFile.Kind.DIRECTORY, file, null, -1, -1, null, null);
+            } else {
+                return StaticFile.MISSING; //directory listing not enabled return 404 or another error
+            }
+        }
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return StaticFile.MISSING;
+        }
+        if (!attrs.isRegularFile()) {
+            return StaticFile.MISSING;
+        }
+        return new StaticFile(StaticFile.Kind.FILE, file, null, attrs.size(), attrs.lastModifiedTime().toMillis(),
+                contentType(file.getPath()), StaticFile.etag(attrs));
+    }
+
+    protected boolean isInBase(File canonical) {
+        if (base == null) {
+            return false;
+        }
+        for (File parent = canonical; parent != null; parent = parent.getParentFile()) {
+            if (base.equals(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param name the file's name or path
+     * @return the content type of the file, files.custom_mime_types are checked before the default types
+     */
+    public String contentType(String name) {
+        //if its a supported text file then set to text mime type
+        for (Map.Entry<String, String> e : formats.entrySet()) {
+            if (name.endsWith(e.getKey())) {
+                return e.getValue();
+            }
+        }
+        return MIME_TYPES.getContentType(name);
+    }
+
+    protected void watch() {
+        try {
+            watcher = base.toPath().getFileSystem().newWatchService();
+            register(base.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn(String.format("Unable to watch %s for changes, static file lookups won't be cached", base), e);
+            return;
+        }
+        watching = true;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                poll();
+            }
+        }, "higgs-public-directory-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void register(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                watched.put(d.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void poll() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                watching = false;
+                clear();
+                return;
+            }
+            Path dir = watched.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW || dir == null) {
+                    clear();
+                    continue;
+                }
+                Path child = dir.resolve((Path) event.context());
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    try {
+                        register(child);
+                    } catch (IOException e) {
+                        //without a watch on it changes in the new directory would never be seen
+                        log.warn(String.format("Unable to watch %s, static file lookups won't be cached", child), e);
+                        watching = false;
+                        clear();
+                    }
+                }
+                invalidate(child.toFile(), event.kind() != ENTRY_MODIFY);
+            }
+            if (!key.reset()) {
+                watched.remove(key);
+            }
+        }
+    }
+}
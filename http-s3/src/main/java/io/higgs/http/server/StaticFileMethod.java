@@ -17,14 +17,8 @@ import java.lang.reflect.Method;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLDecoder;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Enumeration;
 import java.util.Queue;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 /**
  * @author Courtney Robinson <courtney@crlog.info>
@@ -36,8 +30,7 @@ public class StaticFileMethod extends HttpMethod {
     public static final String HTTP_DATE_GMT_TIMEZONE = "GMT";
     public static final int HTTP_CACHE_SECONDS = 60;
     private final HttpProtocolConfiguration config;
-    private File base;
-    private boolean canServe = true;
+    private final boolean canServe;
     private static Logger log = LoggerFactory.getLogger(StaticFileMethod.class);
     private static final Method METHOD;
 
@@ -51,17 +44,12 @@ public class StaticFileMethod extends HttpMethod {
 
     private JarFile jarFile;
     private File matchedFile;
+    private StaticFile staticFile;
 
     public StaticFileMethod(Queue<ObjectFactory> factories, HttpProtocolConfiguration protocolConfig) {
         super(factories, StaticFileMethod.class, METHOD);
         this.config = protocolConfig;
-        base = baseUri(((HttpConfig) config.getServer().getConfig()).files.public_directory);
-        if (base != null) {
-            if (!base.exists()) {
-                canServe = false;
-                log.warn("Public files directory that is configured does not exist. Will not serve static files");
-            }
-        }
+        canServe = config.getStaticFiles().canServe();
     }
 
     public static File baseUri(String public_directory) {
@@ -70,14 +58,16 @@ public class StaticFileMethod extends HttpMethod {
         if (uri != null) {
             try {
                 file = new File(uri.toURI());
-            } catch (URISyntaxException e) {
-                log.info("", e);
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                //not a directory on disk e.g. inside a jar, see JarIndex
+                log.debug("", e);
             }
         }
         if (file == null) {
             file = new File(public_directory);
             if (!file.exists()) {
-                log.warn("Public files directory that is configured does not exist. Will not serve static files");
+                //StaticFileCache warns if there are no files in a jar either
+                log.debug(String.format("Public files directory %s does not exist", public_directory));
             }
         }
         return file;
@@ -98,95 +88,27 @@ public class StaticFileMethod extends HttpMethod {
             return false;
         }
         String base_dir = ((HttpConfig) config.getServer().getConfig()).files.public_directory;
-        String uri = normalizeURI(request, base_dir);
         //sanitize before use
-        uri = base_dir + sanitizeUri(uri);
-        File file = null;
-        //check the classpath first
-        URL source = Thread.currentThread().getContextClassLoader().getResource(uri);
-        try {
-            if (source != null) {
-                //jar:file:/B:/dev/projects/Higgs/higgs-http-s3/target/higgs-http-3s-0.0.1-SNAPSHOT.jar
-                //!/public/default.html
-                String url = source.toExternalForm();
-                if (url.startsWith("jar:")) {
-                    //if it's a JAR path see if we can get it
-                    boolean fromJar = returnJarStreamEndpoint(url);
-                    if (fromJar) {
-                        return fromJar;
-                    }
-                    //if we couldn't get it from the JAR continue anyway and see if it exists on disk
-                } else {
-                    file = new File(source.toURI());
-                    if (file.isHidden() || !file.exists()) {
-                        file = null;
-                    }
-                }
-            }
-        } catch (Throwable e) {
-            log.debug("", e);
-        }
-        //if we couldn't load it from the class path then try to get it from disk
-        if (file == null) {
-            file = new File(uri);
-            if (!file.isDirectory() && (file.isHidden() || !file.exists())) {
-                return false;
-            }
-        }
-        //if its not a sub directory tell them no!
-        if (!isSubDirectory(base, file)) {
+        String uri = sanitizeUri(normalizeURI(request, base_dir));
+        if (uri == null) {
             return false;
         }
-        if (file.isDirectory()) {
-            //get list of files, if index/default found then send it instead of listing directory
-            try {
-                DirectoryStream<Path> paths = Files.newDirectoryStream(file.toPath());
-                boolean list = true;
-                for (Path localPath : paths) {
-                    Path name = localPath.getFileName();
-                    if (((HttpConfig) config.getServer().getConfig()).files.index_file.endsWith(name.toString())) {
-                        file = localPath.toFile();
-                        list = false;
-                        break;
-                    }
-                }
-                if (list) {
-                    if (((HttpConfig) config.getServer().getConfig()).files.enable_directory_listing) {
-                        this.matchedFile = file;
-                        return true;
-                    } else {
-                        return false; //directory listing not enabled return 404 or another error
-                    }
-                }
-            } catch (IOException e) {
-                log.info(String.format("Failed to list files in directory {%s}", e.getMessage()));
+        StaticFile file = config.getStaticFiles().get(base_dir + uri);
+        switch (file.getKind()) {
+            case MISSING:
                 return false;
-            }
-        }
-        if (!file.isFile()) {
-            return false;
+            case JAR:
+                jarFile = config.getStaticFiles().getJarFile(file.getUrl());
+                if (jarFile == null) {
+                    return false;
+                }
+                this.staticFile = file;
+                return true;
+            default:
+                this.staticFile = file;
+                this.matchedFile = file.getFile();
+                return true;
         }
-        // Cache Validation
-//        String modDate = request.headers().get(IF_MODIFIED_SINCE);
-//        if (modDate != null && !modDate.isEmpty()) {
-//            SimpleDateFormat dateFormatter = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
-//            Date ifModifiedSinceDate = null;
-//            try {
-//                ifModifiedSinceDate = dateFormatter.parse(modDate);
-//                // Only compare up to the second because the datetime format we send to the client
-//                // does not have milliseconds
-//                long ifModifiedSinceDateSeconds = ifModifiedSinceDate.getTime() / 1000;
-//                long fileLastModifiedSeconds = file.lastModified() / 1000;
-//                if (ifModifiedSinceDateSeconds == fileLastModifiedSeconds) {
-//                    return new Endpoint("" + System.nanoTime(), server, StaticFile.class, StaticFile.NOT_MODIFIED,
-//                            StaticFile.SERVER_FILE_CONSTRUCTOR, server, file);
-//                }
-//            } catch (ParseException e) {
-//                log.warn("Unable to parse modified since date, ignoring and sending file...");
-//            }
-//        }
-        this.matchedFile = file;
-        return true;
     }
 
     private String normalizeURI(HttpRequest request, String base_dir) {
@@ -208,6 +130,13 @@ public class StaticFileMethod extends HttpMethod {
         return uri;
     }
 
+    /**
+     * @return what the request path resolved to or null if it hasn't been matched
+     */
+    public StaticFile getStaticFile() {
+        return staticFile;
+    }
+
     public Object getFile() {
         if (jarFile != null) {
             return jarFile;
@@ -217,30 +146,7 @@ public class StaticFileMethod extends HttpMethod {
 
     public Object invoke(ChannelHandlerContext ctx, String path, Object msg, Object[] params)
             throws InvocationTargetException, IllegalAccessException, InstantiationException {
-        return classMethod.invoke(this, params);
-    }
-
-    private boolean returnJarStreamEndpoint(final String url) throws IOException {
-        //return null;
-        //todo support  serving files from JARs
-        //need to implement or extend StaticFile so that it accepts an input stream.
-        //then modify sendFile method to send a netty ChunkedStream passing in the jar input stream
-        String jar = url.substring(url.indexOf(":") + 1, url.indexOf("!"));
-        String jarFile = url.substring(url.indexOf("!") + 1);
-        ZipFile zip = new ZipFile(jar);
-        Enumeration<? extends ZipEntry> entries = zip.entries();
-        if (entries != null) {
-            while (entries.hasMoreElements()) {
-                ZipEntry entry = entries.nextElement();
-                if (jarFile.equalsIgnoreCase(entry.getName())) {
-                    this.jarFile = new JarFile(zip,
-                            entry,
-                            zip.getInputStream(entry));
-                    return true;
-                }
-            }
-        }
-        return false;
+        return invoker.invoke(this, params);
     }
 
     /**
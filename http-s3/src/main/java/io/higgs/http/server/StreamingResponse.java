@@ -0,0 +1,191 @@
+package io.higgs.http.server;
+
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A response body an endpoint pushes to as it's produced, from any thread, instead of returning it all at once.
+ * Return one from a resource method and keep writing to it after the method returns, call {@link #end()} once
+ * everything has been written. The body is sent with chunked transfer encoding as the client reads it.
+ * <p/>
+ * At most {@link #getWindow()} chunks are held waiting to be sent. {@link #write(Object)} returns false once the
+ * window is full, the producer should then stop and wait for {@link #onReady(Runnable)} before writing more so
+ * that a slow client doesn't make the server hold the whole body in memory.
+ * <pre>
+ * {@code
+ * @GET("export")
+ * public StreamingResponse export() {
+ *     final StreamingResponse out = new StreamingResponse();
+ *     executor.execute(new Runnable() { public void run() { ... out.write(row); ... out.end(); } });
+ *     return out;
+ * }
+ * }
+ * </pre>
+ */
+public class StreamingResponse {
+    private final Queue<Object> chunks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int window;
+    private volatile boolean ended;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private volatile Runnable ready;
+    private volatile Runnable resume;
+
+    public StreamingResponse() {
+        this(16);
+    }
+
+    /**
+     * @param window the number of chunks which can be waiting to be sent before {@link #write(Object)} returns
+     *               false
+     */
+    public StreamingResponse(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1");
+        }
+        this.window = window;
+    }
+
+    /**
+     * Queue a chunk of the body to be sent, it's always queued even if the window is full
+     *
+     * @param chunk a {@link io.netty.buffer.ByteBuf}, byte[] or {@link CharSequence} sent as UTF-8
+     * @return true if more can be written, false if the window is full and the producer should wait for
+     *         {@link #onReady(Runnable)}
+     * @throws IllegalStateException if the response has ended or the client has gone away
+     */
+    public boolean write(Object chunk) {
+        if (chunk == null) {
+            throw new IllegalArgumentException("Null chunk");
+        }
+        if (ended || closed) {
+            throw new IllegalStateException(closed ? "The client is no longer connected" : "Response has ended");
+        }
+        chunks.add(chunk);
+        int size = queued.incrementAndGet();
+        if (closed) {
+            //closed while adding, nothing will take it
+            drain();
+            throw new IllegalStateException("The client is no longer connected");
+        }
+        resume();
+        return size < window;
+    }
+
+    /**
+     * Finish the response once the chunks already written have been sent
+     */
+    public void end() {
+        ended = true;
+        resume();
+    }
+
+    /**
+     * Abort the response, the connection is closed since the client can't be told the body is incomplete
+     */
+    public void fail(Throwable cause) {
+        failure = cause == null ? new IllegalStateException("Response failed") : cause;
+        ended = true;
+        resume();
+    }
+
+    /**
+     * @return true if there's room in the window
+     */
+    public boolean isReady() {
+        return queued.get() < window && !closed;
+    }
+
+    /**
+     * @param callback run once when there's room in the window again, on the channel's event loop as chunks are
+     *                 sent, or immediately on the calling thread if there's room now
+     */
+    public void onReady(Runnable callback) {
+        ready = callback;
+        if (isReady()) {
+            fireReady();
+        }
+    }
+
+    /**
+     * @return true if the client has gone away or the whole response has been sent, nothing more can be written
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * @param resume called whenever there's something new to send, set by the writer sending the response
+     */
+    public void setResume(Runnable resume) {
+        this.resume = resume;
+        resume();
+    }
+
+    /**
+     * Take the next chunk to send, called by the writer
+     *
+     * @return the next chunk or null if there's none waiting
+     */
+    public Object poll() {
+        Object chunk = chunks.poll();
+        if (chunk != null && queued.decrementAndGet() == window - 1) {
+            fireReady();
+        }
+        return chunk;
+    }
+
+    /**
+     * @return true once {@link #end()} or {@link #fail(Throwable)} has been called and every chunk taken
+     */
+    public boolean isEnded() {
+        return ended && chunks.isEmpty();
+    }
+
+    /**
+     * @return why the response was failed or null
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Called by the writer when the response has been sent or can't be, chunks still queued are released and
+     * writes after this fail
+     */
+    public void close() {
+        closed = true;
+        drain();
+    }
+
+    private void drain() {
+        Object chunk;
+        while ((chunk = chunks.poll()) != null) {
+            queued.decrementAndGet();
+            ReferenceCountUtil.release(chunk);
+        }
+    }
+
+    private void resume() {
+        Runnable r = resume;
+        if (r != null) {
+            r.run();
+        }
+    }
+
+    private void fireReady() {
+        Runnable r = ready;
+        if (r != null) {
+            ready = null;
+            r.run();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.higgs.http.server;
+
+import io.higgs.http.server.config.FilesConfig;
+import io.higgs.http.server.params.HttpFile;
+import io.higgs.http.server.resource.upload;
+import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
+import io.netty.handler.codec.http.multipart.HttpDataFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * How the form data and files posted to a method are stored and how much of it is accepted.
+ * One is made from {@link FilesConfig} and each method annotated with {@link upload} gets its own, they're shared by
+ * every request to the method so the {@link HttpDataFactory} is made once rather than per request
+ */
+public class UploadPolicy {
+    private static final Pattern EXTENSION = Pattern.compile("\\.[A-Za-z0-9]{1,16}$");
+    private final long maxSize;
+    private final long memoryThreshold;
+    private final File directory;
+    private final HttpDataFactory factory;
+
+    /**
+     * @param maxSize         the largest body accepted in bytes, 0 for no limit
+     * @param memoryThreshold fields and files up to this many bytes are kept in memory, 0 to always spool to disk
+     * @param directory       where uploaded files are moved once received, null to leave them where they're spooled
+     */
+    public UploadPolicy(long maxSize, long memoryThreshold, String directory) {
+        if (maxSize < 0 || memoryThreshold < 0) {
+            throw new IllegalArgumentException("maxSize and memoryThreshold can't be negative");
+        }
+        this.maxSize = maxSize;
+        this.memoryThreshold = memoryThreshold;
+        this.directory = directory == null || directory.isEmpty() ? null : new File(directory);
+        factory = memoryThreshold == 0 ? new DefaultHttpDataFactory(true) : new DefaultHttpDataFactory(memoryThreshold);
+    }
+
+    public UploadPolicy(FilesConfig conf) {
+        this(conf.upload_max_size, conf.upload_memory_threshold, conf.upload_directory);
+    }
+
+    /**
+     * @return a policy with the settings the annotation gives and this policy's for the ones it leaves as default
+     */
+    public UploadPolicy with(upload upload) {
+        return new UploadPolicy(upload.maxSize() < 0 ? maxSize : upload.maxSize(),
+                upload.memoryThreshold() < 0 ? memoryThreshold : upload.memoryThreshold(),
+                upload.directory().isEmpty() ? directory == null ? null : directory.getPath() : upload.directory());
+    }
+
+    /**
+     * @return true if a body of the given size is more than allowed, unknown sizes (negative) never are
+     */
+    public boolean exceeds(long size) {
+        return maxSize > 0 && size > maxSize;
+    }
+
+    /**
+     * Move the file into this policy's directory under a new, unique name which keeps its extension.
+     * Does nothing if there's no directory
+     */
+    public void store(HttpFile file) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException(String.format("Unable to create upload directory %s", directory));
+        }
+        String name = file.getFileName();
+        Matcher m = EXTENSION.matcher(name == null ? "" : name);
+        file.moveTo(File.createTempFile("upload-", m.find() ? m.group() : null, directory));
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public HttpDataFactory getFactory() {
+        return factory;
+    }
+}
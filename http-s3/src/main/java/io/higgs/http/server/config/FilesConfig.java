@@ -8,14 +8,43 @@ import java.util.Map;
  */
 public class FilesConfig {
     public boolean delete_temp_on_exit = true;
-    //use default system temp dir if null
+    //use default system temp dir if null, uploads bigger than upload_memory_threshold are spooled here
     public String temp_directory;
+    //form fields and files up to this many bytes are kept in memory, 0 spools everything to temp_directory
+    public long upload_memory_threshold = 16384;
+    //request bodies bigger than this many bytes are rejected with 413, 0 for no limit. see resource.upload
+    public long upload_max_size = 0;
+    //uploaded files are moved here once the whole request is received, left in temp_directory if null
+    public String upload_directory;
     //how big are the chunks when sending a file
     public int chunk_size = 8192;
+    //send files with sendfile/transferTo when nothing in the pipeline needs to see the bytes e.g. no SSL
+    public boolean zero_copy = true;
+    //how big are the chunks when a file can't be sent with zero_copy e.g. when it has to be encrypted
+    public int transfer_chunk_size = 65536;
     public String public_directory = "public";
     public boolean enable_directory_listing = true;
     public boolean serve_index_file = true;
     public String index_file = "/index.html";
+    //how many resolved paths in the public directory to cache, 0 disables caching and watching the directory
+    public int metadata_cache_size = 10000;
+    //how many paths which don't exist to cache, kept separately so they can't push out files that do exist
+    public int missing_cache_size = 10000;
+    //total bytes of small files to keep in memory, 0 disables the cache and files are read for every request
+    public long content_cache_max_bytes = 0;
+    //files bigger than this are never kept in memory
+    public int content_cache_max_entry_size = 65536;
+    //send foo.js.br or foo.js.gz instead of foo.js when the client accepts it and it's not older than foo.js
+    public boolean serve_precompressed = true;
+    //total bytes of text files gzipped on the fly to keep in memory, 0 disables compressing static files
+    public long compressed_cache_max_bytes = 16777216;
+    //files smaller than this aren't worth compressing, bigger than compress_max_size are sent uncompressed
+    public int compress_min_size = 1024;
+    public int compress_max_size = 1048576;
+    //deflate level used for files compressed on the fly, 1 (fastest) to 9 (smallest)
+    public int compression_level = 6;
+    //content types compressed on the fly, comma separated, a type matches if it starts with one of them
+    public String compressible_types = "text/,application/javascript,application/json,application/xml,image/svg+xml";
     //colon separates each, comma, separates multiple extensions
     public Map<String, String> custom_mime_types = new HashMap<>();
 
@@ -9,6 +9,21 @@ import java.util.Map;
 public class HttpConfig extends ServerConfig {
     public TemplateConfig template_config = new TemplateConfig();
     public FilesConfig files = new FilesConfig();
+    //stream responses which are an Iterator, InputStream or StreamingResponse instead of buffering them
+    public boolean add_streaming_transformer = true;
+    //how many bytes are read at a time from an InputStream returned by a resource
+    public int stream_chunk_size = 8192;
+    //bytes of a @StreamingBody held waiting for the method to consume them before reading from the client is paused
+    public int streaming_body_buffer_size = 1048576;
+    //compress responses with gzip or deflate when the client accepts it, static files use files.compression_level
+    public boolean compression = true;
+    //deflate level, 1 (fastest) to 9 (smallest)
+    public int compression_level = 6;
+    //responses smaller than this aren't worth compressing
+    public int compression_min_size = 1024;
+    //content types which are already compressed, comma separated, a type matches if it starts with one of these
+    public String compression_excluded_types = "image/png,image/jpeg,image/gif,image/webp,video/,audio/," +
+            "application/zip,application/gzip,application/x-gzip,application/octet-stream,application/pdf,font/woff";
     //
     private Map<Integer, HttpMethod> errors = new HashMap<>();
 
@@ -1,9 +1,15 @@
 package io.higgs.http.server.params;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.multipart.FileUpload;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 /**
  * @author Courtney Robinson <courtney@crlog.info>
@@ -14,8 +20,10 @@ public class HttpFile {
     private String contentType;
     private boolean inMemory;
     private File file;
+    private FileUpload upload;
 
     public HttpFile(final FileUpload data) {
+        upload = data;
         parameterName = data.getName();
         fileName = data.getFilename();
         contentType = data.getContentType();
@@ -31,10 +39,40 @@ public class HttpFile {
         return inMemory;
     }
 
+    /**
+     * @return where the upload is on disk, null if it's {@link #isInMemory()}
+     */
     public File getFile() {
         return file;
     }
 
+    /**
+     * Move the upload to the given file, replacing it if it exists. A file spooled to disk is renamed when the
+     * destination is on the same file system, so it's not copied, one held in memory is written out in one go.
+     * Afterwards {@link #getFile()} is the destination
+     *
+     * @return the destination
+     */
+    public File moveTo(File destination) throws IOException {
+        if (file != null) {
+            Files.move(file.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            ByteBuf content = upload.getByteBuf();
+            try (FileChannel out = FileChannel.open(destination.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buf = content.nioBuffer();
+                while (buf.hasRemaining()) {
+                    out.write(buf);
+                }
+            }
+            //the file now holds the content, don't keep it in memory too
+            upload.delete();
+        }
+        file = destination;
+        inMemory = false;
+        return destination;
+    }
+
     /**
      * Get the parameter name used to represent the file in the HTML form
      *
@@ -0,0 +1,16 @@
+package io.higgs.http.server.params;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds the request body, parsed as JSON, to the parameter. The parameter can be any type Jackson can read including
+ * generic ones such as {@code List<Item>}. An empty body injects null, one which can't be read as the parameter's
+ * type is rejected with 400 Bad Request before the method is invoked
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.PARAMETER })
+public @interface JsonBody {
+}
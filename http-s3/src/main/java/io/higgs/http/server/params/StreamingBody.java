@@ -0,0 +1,15 @@
+package io.higgs.http.server.params;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link io.higgs.http.server.RequestBody} parameter. The method is invoked as soon as the request's
+ * headers have been read and consumes the body as it arrives instead of after it has all been received
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.PARAMETER })
+public @interface StreamingBody {
+}
@@ -1,26 +1,53 @@
 package io.higgs.http.server.protocol;
 
-import io.higgs.core.ProtocolDetector;
+import io.higgs.core.MagicProtocolDetector;
+import io.higgs.http.server.HttpCompressor;
 import io.higgs.http.server.HttpRequestDecoder;
 import io.higgs.http.server.HttpResponseEncoder;
+import io.higgs.http.server.config.HttpConfig;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.EmptyByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.CharsetUtil;
 
 /**
+ * Detects HTTP requests from the first two bytes of the method name.
+ * Stateless, one instance is shared by every channel.
+ *
  * @author Courtney Robinson <courtney@crlog.info>
  */
-public class HttpDetector implements ProtocolDetector {
+public class HttpDetector implements MagicProtocolDetector {
+    private static final byte[][] PREFIXES = prefixes("GE", "PO", "PU", "HE", "OP", "PA", "DE", "TR", "CO");
     protected final HttpProtocolConfiguration config;
 
     public HttpDetector(HttpProtocolConfiguration config) {
         this.config = config;
     }
 
+    protected static byte[][] prefixes(String... prefixes) {
+        byte[][] bytes = new byte[prefixes.length][];
+        for (int i = 0; i < prefixes.length; i++) {
+            bytes[i] = prefixes[i].getBytes(CharsetUtil.US_ASCII);
+        }
+        return bytes;
+    }
+
+    @Override
+    public byte[][] prefixes() {
+        return PREFIXES;
+    }
+
+    @Override
+    public int bytesRequired() {
+        return 2;
+    }
+
     @Override
     public boolean detected(ChannelHandlerContext ctx, ByteBuf in) {
+        if (in.readableBytes() < 2) {
+            return false;
+        }
         final int magic1 = in.getUnsignedByte(in.readerIndex());
         final int magic2 = in.getUnsignedByte(in.readerIndex() + 1);
         return
@@ -41,16 +68,13 @@ public class HttpDetector implements ProtocolDetector {
         HttpHandler h = new HttpHandler(config);
         p.addLast("decoder", new HttpRequestDecoder());
         p.addLast("encoder", new HttpResponseEncoder());
+        //between the encoder and the chunked writer so the HttpContent read from streamed responses is compressed,
+        //file regions and the buffers read from files aren't HttpContent and pass through untouched
+        HttpConfig conf = config.getServer().getConfig();
+        if (conf.compression) {
+            p.addLast("compressor", new HttpCompressor(conf));
+        }
         p.addLast("chunkedWriter", new ChunkedWriteHandler());
-        //ByteBufToHttpContent must come before compressor and after chunked writer to support
-        //compressing chunked files
-//        p.addLast("ByteBufToHttpContent", new MessageToMessageEncoder<ByteBuf>() {
-//            @Override
-//            protected void encode(ChannelHandlerContext ctx, ByteBuf msg, MessageBuf<Object> out) throws Exception {
-//                out.add(new DefaultHttpContent(msg.retain()));
-//            }
-//        });
-//        p.addLast("deflater", new HttpContentCompressor());
         p.addLast("handler", h);
         return h;
     }
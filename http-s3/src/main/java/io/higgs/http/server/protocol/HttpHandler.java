@@ -1,5 +1,6 @@
 package io.higgs.http.server.protocol;
 
+import io.higgs.core.ExecutionMode;
 import io.higgs.core.FixedSortedList;
 import io.higgs.core.InvokableMethod;
 import io.higgs.core.MessageHandler;
@@ -10,35 +11,40 @@ import io.higgs.http.server.HttpResponse;
 import io.higgs.http.server.HttpStatus;
 import io.higgs.http.server.MessagePusher;
 import io.higgs.http.server.ParamInjector;
+import io.higgs.http.server.RequestBody;
+import io.higgs.http.server.UploadPolicy;
 import io.higgs.http.server.StaticFileMethod;
 import io.higgs.http.server.WebApplicationException;
 import io.higgs.http.server.WrappedResponse;
 import io.higgs.http.server.config.HttpConfig;
 import io.higgs.http.server.params.HttpFile;
 import io.higgs.http.server.transformers.ResponseTransformer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
-import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
-import io.netty.handler.codec.http.multipart.DiskAttribute;
-import io.netty.handler.codec.http.multipart.DiskFileUpload;
 import io.netty.handler.codec.http.multipart.FileUpload;
-import io.netty.handler.codec.http.multipart.HttpDataFactory;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
 
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
 import static io.netty.handler.codec.http.HttpHeaders.getHeader;
@@ -52,7 +58,6 @@ import static io.netty.handler.codec.http.HttpHeaders.setContentLength;
  */
 public class HttpHandler extends MessageHandler<HttpConfig, Object> {
     protected static final Class<HttpMethod> methodClass = HttpMethod.class;
-    protected static HttpDataFactory factory = new DefaultHttpDataFactory(DefaultHttpDataFactory.MINSIZE); //Disk
     /**
      * The current HTTP request
      */
@@ -66,22 +71,33 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
     protected ParamInjector injector;
     protected HttpProtocolConfiguration protocolConfig;
     protected HttpPostRequestDecoder decoder;
+    /**
+     * How the current request's body is stored and how big it can be, the server's or the {@link #method}'s own
+     */
+    protected UploadPolicy uploadPolicy;
+    private long bodySize;
+    /**
+     * The body of a request whose method takes a {@link io.higgs.http.server.params.JsonBody}, as received
+     */
+    private CompositeByteBuf body;
+    /**
+     * The body of a request whose method takes a {@link io.higgs.http.server.params.StreamingBody}, set until the
+     * last of the body is received. It decides when reads are paused while it's set, even after a response is sent
+     */
+    protected RequestBody streamingBody;
     private Logger requestLogger = LoggerFactory.getLogger("request_logger");
     private boolean replied;
+    /**
+     * true while a method is being invoked off the event loop, reads are paused and any messages already decoded
+     * are held in {@link #deferred} until the response has been written
+     */
+    private boolean pending;
+    private final Queue<Object> deferred = new ArrayDeque<>();
 
     public HttpHandler(HttpProtocolConfiguration config) {
         super(config.getServer().<HttpConfig>getConfig());
-        HttpConfig c = config.getServer().getConfig();
         protocolConfig = config;
         injector = config.getInjector();
-        // should delete file
-        DiskFileUpload.deleteOnExitTemporaryFile = c.files.delete_temp_on_exit;
-        // system temp directory
-        DiskFileUpload.baseDirectory = c.files.temp_directory;
-        // should delete file on
-        DiskAttribute.deleteOnExitTemporaryFile = c.files.delete_temp_on_exit;
-        // exit (in normal exit)
-        DiskAttribute.baseDirectory = c.files.temp_directory; // system temp directory
     }
 
     public <M extends InvokableMethod> M findMethod(String path, ChannelHandlerContext ctx,
@@ -98,8 +114,19 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
     }
 
     public void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
-        if (msg instanceof LastHttpContent && !(msg instanceof FullHttpRequest) && replied) {
-            return;  //can happen if exception was thrown before last http content received
+        if (streamingBody != null && msg instanceof HttpContent) {
+            //the method is already running, possibly on another thread, and consuming the body as it arrives
+            offerStreamingBody(ctx, (HttpContent) msg);
+            return;
+        }
+        if (pending) {
+            //the current request's method is still running on another thread, handle this after it responds
+            deferred.add(ReferenceCountUtil.retain(msg));
+            return;
+        }
+        if (msg instanceof HttpContent && !(msg instanceof io.netty.handler.codec.http.HttpRequest) && replied) {
+            //the rest of a body whose request has been answered, e.g. an exception was thrown or it was too big
+            return;
         }
         replied = false;
         if (msg instanceof HttpRequest || msg instanceof FullHttpRequest) {
@@ -120,8 +147,26 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
                 //404
                 throw new WebApplicationException(HttpStatus.NOT_FOUND, request);
             }
-            //set the path that matched
-            request.setPath(method.path());
+            //set the path that matched, matches() sets it but other candidates may have matched the path first
+            if (request.getPathMatch() == null || request.getPathMatch().path() != method.path()) {
+                request.setPathMatch(method.path().match(request.getUri()));
+            }
+            uploadPolicy = method.getUploadPolicy(protocolConfig.getUploadPolicy());
+            bodySize = 0;
+            if (uploadPolicy.exceeds(HttpHeaders.getContentLength(request, -1))) {
+                //before any of it is read, for clients which sent Expect: 100-continue before any of it is sent
+                rejectTooLarge();
+            }
+            if (method.hasStreamingBody()) {
+                streamingBody = new RequestBody(ctx.channel(), config.streaming_body_buffer_size);
+                request.setStreamingBody(streamingBody);
+                if (msg instanceof FullHttpRequest) {
+                    offerStreamingBody(ctx, (FullHttpRequest) msg);
+                }
+                //invoke now rather than when the body's been received, the rest is offered to it as it arrives
+                invoke(ctx);
+                return;
+            }
         }
         if (request == null || method == null) {
             log.warn(String.format("Method or request is null \n method \n%s \n request \n%s",
@@ -129,7 +174,17 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
             throw new WebApplicationException(HttpStatus.INTERNAL_SERVER_ERROR, request);
         }
         //we have a request and it matches a registered method
-        if (!io.netty.handler.codec.http.HttpMethod.POST.name().equalsIgnoreCase(request.getMethod().name()) &&
+        if (method.hasJsonBody()) {
+            //bound by Jackson as it is, not decoded as a form
+            if (msg instanceof HttpContent) {
+                if (!(msg instanceof FullHttpRequest)) {
+                    appendBody(ctx, (HttpContent) msg);
+                }
+                if (msg instanceof LastHttpContent) {
+                    invoke(ctx);
+                }
+            }
+        } else if (!io.netty.handler.codec.http.HttpMethod.POST.name().equalsIgnoreCase(request.getMethod().name()) &&
                 !io.netty.handler.codec.http.HttpMethod.PUT.name().equalsIgnoreCase(request.getMethod().name())) {
             if (msg instanceof LastHttpContent) {
                 //only post and put requests  are allowed to send form data so everything else just returns
@@ -139,7 +194,7 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
             //if its a post or put request and a decoder doesn't exist then create one.
             if (decoder == null) {
                 try {
-                    decoder = new HttpPostRequestDecoder(factory, request);
+                    decoder = new HttpPostRequestDecoder(uploadPolicy.getFactory(), request);
                 } catch (HttpPostRequestDecoder.ErrorDataDecoderException e1) {
                     log.warn("Unable to decode data", e1);
                     throw new WebApplicationException(HttpStatus.BAD_REQUEST, request);
@@ -155,6 +210,12 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
             if (msg instanceof HttpContent) {
                 // New chunk is received
                 HttpContent chunk = (HttpContent) msg;
+                bodySize += chunk.content().readableBytes();
+                if (uploadPolicy.exceeds(bodySize)) {
+                    //sent without a Content-Length or with a wrong one, drop what's been stored so far
+                    decoder.cleanFiles();
+                    rejectTooLarge();
+                }
                 try {
                     decoder.offer(chunk);
                 } catch (HttpPostRequestDecoder.ErrorDataDecoderException e1) {
@@ -169,6 +230,47 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
         }
     }
 
+    private void offerStreamingBody(ChannelHandlerContext ctx, HttpContent chunk) {
+        RequestBody body = streamingBody;
+        bodySize += chunk.content().readableBytes();
+        if (uploadPolicy.exceeds(bodySize)) {
+            //the method may have responded already, all that can be done is to stop receiving it
+            streamingBody = null;
+            body.fail(new IOException(String.format("Request body is bigger than the %s bytes allowed",
+                    uploadPolicy.getMaxSize())));
+            ctx.close();
+            return;
+        }
+        body.offer(chunk.content());
+        if (chunk instanceof LastHttpContent) {
+            streamingBody = null;
+            body.end();
+            //the body may have paused reads, from here on they're paused only while a method is running
+            ctx.channel().config().setAutoRead(!pending);
+        }
+    }
+
+    /**
+     * Keep the chunk as part of the request's content, without copying it
+     */
+    private void appendBody(ChannelHandlerContext ctx, HttpContent chunk) {
+        ByteBuf data = chunk.content();
+        bodySize += data.readableBytes();
+        if (uploadPolicy.exceeds(bodySize)) {
+            rejectTooLarge();
+        }
+        if (!data.isReadable()) {
+            return;
+        }
+        if (body == null) {
+            //never consolidated, that would copy every chunk received so far
+            body = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+            request.setContent(body);
+        }
+        body.addComponent(data.retain());
+        body.writerIndex(body.writerIndex() + data.readableBytes());
+    }
+
     private void readHttpDataChunkByChunk() {
         try {
             while (decoder.hasNext()) {
@@ -231,23 +333,57 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
         for (InterfaceHttpData httpData : data) {
             writeHttpData(httpData);
         }
+        for (HttpFile file : request.getFormFiles().values()) {
+            try {
+                uploadPolicy.store(file);
+            } catch (IOException e) {
+                log.warn(String.format("Unable to move uploaded file %s to %s", file.getFileName(),
+                        uploadPolicy.getDirectory()), e);
+                throw new WebApplicationException(HttpStatus.INTERNAL_SERVER_ERROR, request, e);
+            }
+        }
         invoke(ctx);
     }
 
+    /**
+     * Answer 413 and close the connection rather than read the rest of a body which is too big
+     */
+    private void rejectTooLarge() {
+        //the close is decided by the request's Connection header when the response is written
+        request.headers().set(CONNECTION, HttpHeaders.Values.CLOSE);
+        throw new WebApplicationException(HttpStatus.REQUEST_ENTITY_TOO_LARGE, request);
+    }
+
     protected void invoke(final ChannelHandlerContext ctx) {
         MessagePusher pusher = new MessagePusher() {
             @Override
-            public ChannelFuture push(Object message) {
-                //http methods can return null or void and still have the response injected and modified
-                //so null messages are allowed here
-                Object wrappedRes = message != null && message instanceof WrappedResponse ?
-                        ((WrappedResponse) message).data() : null;
-                if (wrappedRes != null) {
-                    message = wrappedRes;
+            public ChannelFuture push(final Object message) {
+                if (ctx.executor().inEventLoop()) {
+                    return pushResponse(ctx, message);
                 }
-
-                Queue<ResponseTransformer> transformers = protocolConfig.getTransformers();
-                return writeResponse(ctx, message, transformers);
+                //the method is running on another thread, the response is always written from the event loop
+                final ChannelPromise promise = ctx.newPromise();
+                ctx.executor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            pushResponse(ctx, message).addListener(new ChannelFutureListener() {
+                                @Override
+                                public void operationComplete(ChannelFuture future) throws Exception {
+                                    if (future.isSuccess()) {
+                                        promise.setSuccess();
+                                    } else {
+                                        promise.setFailure(future.cause());
+                                    }
+                                }
+                            });
+                        } catch (Throwable t) {
+                            promise.setFailure(t);
+                            exceptionCaught(ctx, t);
+                        }
+                    }
+                });
+                return promise;
             }
 
             @Override
@@ -260,6 +396,52 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
                 DependencyProvider.from(pusher));
         //inject request specific dependencies
         injector.injectParams(method, request, res, ctx, params);
+        ExecutionMode mode = getExecutor().modeFor(method);
+        if (mode == ExecutionMode.INLINE) {
+            invoke(ctx, method, request, params, pusher);
+            return;
+        }
+        final HttpMethod m = method;
+        final HttpRequest req = request;
+        final Object[] args = params;
+        final MessagePusher p = pusher;
+        //the message holding the body is released once channelRead0 returns, keep it until the method's done
+        final ByteBuf retainedContent = req.content().retain();
+        pending = true;
+        if (streamingBody == null) {
+            ctx.channel().config().setAutoRead(false);
+        }
+        try {
+            getExecutor().execute(m, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        invoke(ctx, m, req, args, p);
+                    } catch (final Throwable t) {
+                        onEventLoop(ctx, new Runnable() {
+                            @Override
+                            public void run() {
+                                exceptionCaught(ctx, t);
+                            }
+                        });
+                    } finally {
+                        retainedContent.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            retainedContent.release();
+            resume(ctx);
+            log.warn(String.format("Too many requests waiting to be processed, rejecting %s", req.getUri()));
+            throw new WebApplicationException(HttpStatus.SERVICE_UNAVAILABLE, req, e);
+        }
+    }
+
+    /**
+     * Invoke the method and push its response, on whichever thread the method's {@link ExecutionMode} dictates
+     */
+    protected void invoke(ChannelHandlerContext ctx, HttpMethod method, HttpRequest request, Object[] params,
+                          MessagePusher pusher) {
         try {
             Object response = method.invoke(ctx, request.getUri(), method, params);
             pusher.push(response);
@@ -273,6 +455,52 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
         }
     }
 
+    private ChannelFuture pushResponse(ChannelHandlerContext ctx, Object message) {
+        //http methods can return null or void and still have the response injected and modified
+        //so null messages are allowed here
+        Object wrappedRes = message != null && message instanceof WrappedResponse ?
+                ((WrappedResponse) message).data() : null;
+        if (wrappedRes != null) {
+            message = wrappedRes;
+        }
+
+        Queue<ResponseTransformer> transformers = protocolConfig.getTransformers();
+        return writeResponse(ctx, message, transformers);
+    }
+
+    /**
+     * Called once the response to a method invoked off the event loop has been written.
+     * Resumes reading and handles any messages which arrived in the mean time
+     */
+    private void resume(final ChannelHandlerContext ctx) {
+        if (!pending) {
+            return;
+        }
+        pending = false;
+        if (streamingBody == null) {
+            //otherwise reads weren't paused for the method, the body pauses and resumes them
+            ctx.channel().config().setAutoRead(true);
+        }
+        if (!deferred.isEmpty()) {
+            //not inline, the write which called this hasn't finished yet
+            ctx.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    Object msg;
+                    while (!pending && (msg = deferred.poll()) != null) {
+                        try {
+                            channelRead0(ctx, msg);
+                        } catch (Throwable t) {
+                            exceptionCaught(ctx, t);
+                        } finally {
+                            ReferenceCountUtil.release(msg);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
     protected ChannelFuture writeResponse(ChannelHandlerContext ctx, Object response, Queue<ResponseTransformer> t) {
         if (res.isRedirect()) {
             return doWrite(ctx);
@@ -340,10 +568,38 @@ public class HttpHandler extends MessageHandler<HttpConfig, Object> {
         request = null;
         res = null;
         decoder = null;
+        if (body != null) {
+            //the @JsonBody composite is owned by the handler, a method running off the event loop holds its own
+            //reference to the request's content until it returns
+            body.release();
+            body = null;
+        }
+        if (streamingBody != null && !streamingBody.isConsumed()) {
+            //responded without reading the body, what's left of it is read and discarded
+            streamingBody.close();
+        }
         replied = true;
+        resume(ctx);
         return future;
     }
 
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        Object msg;
+        while ((msg = deferred.poll()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+        if (streamingBody != null) {
+            streamingBody.fail(new ClosedChannelException());
+            streamingBody = null;
+        }
+        if (body != null) {
+            body.release();
+            body = null;
+        }
+        super.channelInactive(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         try {
@@ -2,15 +2,18 @@ package io.higgs.http.server.protocol;
 
 import io.higgs.core.InvokableMethod;
 import io.higgs.core.ObjectFactory;
+import io.higgs.core.PathMatch;
 import io.higgs.core.ResourcePath;
 import io.higgs.core.reflect.dependency.DependencyProvider;
 import io.higgs.http.server.HttpRequest;
 import io.higgs.http.server.MethodParam;
+import io.higgs.http.server.UploadPolicy;
 import io.higgs.http.server.WebApplicationException;
 import io.higgs.http.server.params.ValidationResult;
 import io.higgs.http.server.resource.Consumes;
 import io.higgs.http.server.resource.MediaType;
 import io.higgs.http.server.resource.Produces;
+import io.higgs.http.server.resource.upload;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpResponseStatus;
 
@@ -33,6 +36,10 @@ public class HttpMethod extends InvokableMethod {
     private ValidationResult validationResult;
     private String[] fragments = new String[0];
     private List<VERB> verbs = new ArrayList<>();
+    private boolean streamingBody;
+    private boolean jsonBody;
+    private upload uploadSettings;
+    private volatile UploadPolicy uploadPolicy;
 
     public HttpMethod(Queue<ObjectFactory> factories, Class<?> klass, Method classMethod) {
         super(factories, klass, classMethod);
@@ -81,14 +88,15 @@ public class HttpMethod extends InvokableMethod {
     @Override
     public boolean matches(String requestPath, ChannelHandlerContext ctx, Object msg) {
         ResourcePath resourcePath = path();
-        if (resourcePath.matches(requestPath)) {
+        PathMatch match = resourcePath.match(requestPath);
+        if (match != null) {
             if (!(msg instanceof HttpRequest)) {
                 //if not an HttpRequest but the path matches then return true
                 return true;
             } else {
                 //if it is an http request the the media type must also match, if set
                 HttpRequest request = (HttpRequest) msg;
-                request.setPath(resourcePath);
+                request.setPathMatch(match);
                 //firstly does the request's verb matches the method's
                 if (!matchesVerb(request.getMethod().name())) {
                     return false; //if verb doesn't match nothing else matters
@@ -203,6 +211,54 @@ public class HttpMethod extends InvokableMethod {
         return validationResult;
     }
 
+    /**
+     * @return true if the method takes a {@link io.higgs.http.server.params.StreamingBody} and is invoked as soon
+     *         as the request's headers are read
+     */
+    public boolean hasStreamingBody() {
+        return streamingBody;
+    }
+
+    public void setStreamingBody(boolean streamingBody) {
+        this.streamingBody = streamingBody;
+    }
+
+    /**
+     * @return true if the method takes a {@link io.higgs.http.server.params.JsonBody}, its request body is kept
+     *         as received instead of being decoded as a form
+     */
+    public boolean hasJsonBody() {
+        return jsonBody;
+    }
+
+    public void setJsonBody(boolean jsonBody) {
+        this.jsonBody = jsonBody;
+    }
+
+    /**
+     * @param upload the method's or its class' upload settings, null to use the server's
+     */
+    public void setUpload(upload upload) {
+        uploadSettings = upload;
+        uploadPolicy = null;
+    }
+
+    /**
+     * @param defaults the server's policy
+     * @return the defaults or if this method has an {@link upload} annotation, a policy with its settings
+     */
+    public UploadPolicy getUploadPolicy(UploadPolicy defaults) {
+        if (uploadSettings == null) {
+            return defaults;
+        }
+        UploadPolicy policy = uploadPolicy;
+        if (policy == null) {
+            //at worst two requests both make one, either is fine to keep
+            policy = uploadPolicy = defaults.with(uploadSettings);
+        }
+        return policy;
+    }
+
     public void addVerb(VERB a) {
         if (a != null) {
             verbs.add(a);
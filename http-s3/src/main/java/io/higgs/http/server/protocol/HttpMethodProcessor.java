@@ -3,14 +3,17 @@ package io.higgs.http.server.protocol;
 import io.higgs.core.MethodProcessor;
 import io.higgs.core.ObjectFactory;
 import io.higgs.http.server.MethodParam;
+import io.higgs.http.server.RequestBody;
 import io.higgs.http.server.params.CookieParam;
 import io.higgs.http.server.params.DefaultValidator;
 import io.higgs.http.server.params.FormParam;
 import io.higgs.http.server.params.HeaderParam;
 import io.higgs.http.server.params.IllegalValidatorException;
+import io.higgs.http.server.params.JsonBody;
 import io.higgs.http.server.params.PathParam;
 import io.higgs.http.server.params.QueryParam;
 import io.higgs.http.server.params.SessionParam;
+import io.higgs.http.server.params.StreamingBody;
 import io.higgs.http.server.params.valid;
 import io.higgs.http.server.resource.DELETE;
 import io.higgs.http.server.resource.GET;
@@ -19,6 +22,7 @@ import io.higgs.http.server.resource.OPTIONS;
 import io.higgs.http.server.resource.POST;
 import io.higgs.http.server.resource.PUT;
 import io.higgs.http.server.resource.template;
+import io.higgs.http.server.resource.upload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +48,8 @@ public class HttpMethodProcessor implements MethodProcessor {
 
         determineTemplate(method, klass, im);
         processVerbs(im, method);
+        im.setUpload(method.isAnnotationPresent(upload.class) ? method.getAnnotation(upload.class) :
+                klass.getAnnotation(upload.class));
         Class<?>[] parameters = method.getParameterTypes();
         //outter array is each parameter, inner array is list of annotations for each parameter
         Annotation[][] methodAnnotations = method.getParameterAnnotations();
@@ -124,6 +130,19 @@ public class HttpMethodProcessor implements MethodProcessor {
                     }
                     continue;
                 }
+                if (annotation.annotationType().isAssignableFrom(StreamingBody.class)) {
+                    if (!RequestBody.class.isAssignableFrom(parameterType)) {
+                        throw new IllegalArgumentException(String.format("@StreamingBody parameter %s of %s.%s " +
+                                "must be a %s", i, klass.getName(), method.getName(), RequestBody.class.getName()));
+                    }
+                    im.setStreamingBody(true);
+                    continue;
+                }
+                if (annotation.annotationType().isAssignableFrom(JsonBody.class)) {
+                    methodParam.setJsonBodyType(method.getGenericParameterTypes()[i]);
+                    im.setJsonBody(true);
+                    continue;
+                }
                 log.warn(String.format("Unknown param type annotation %s", annotation.annotationType().getName()));
             }
         }
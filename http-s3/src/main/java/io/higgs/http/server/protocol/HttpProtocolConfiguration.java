@@ -1,19 +1,28 @@
 package io.higgs.http.server.protocol;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.higgs.core.HiggsServer;
 import io.higgs.core.MethodProcessor;
 import io.higgs.core.ProtocolConfiguration;
 import io.higgs.core.ProtocolDetectorFactory;
 import io.higgs.http.server.DefaultParamInjector;
 import io.higgs.http.server.ParamInjector;
+import io.higgs.http.server.StaticFileCache;
 import io.higgs.http.server.Transcriber;
+import io.higgs.http.server.UploadPolicy;
+import io.higgs.http.server.config.FilesConfig;
 import io.higgs.http.server.config.HttpConfig;
 import io.higgs.http.server.params.HttpSession;
+import io.higgs.http.server.transformers.FileContentCache;
 import io.higgs.http.server.transformers.HttpErrorTransformer;
 import io.higgs.http.server.transformers.JsonTransformer;
 import io.higgs.http.server.transformers.ResponseTransformer;
+import io.higgs.http.server.transformers.StaticFileCompression;
 import io.higgs.http.server.transformers.StaticFileTransformer;
+import io.higgs.http.server.transformers.StreamingTransformer;
 import io.higgs.http.server.transformers.ThymeleafTransformer;
+import io.netty.handler.codec.http.multipart.DiskAttribute;
+import io.netty.handler.codec.http.multipart.DiskFileUpload;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -27,6 +36,13 @@ public class HttpProtocolConfiguration implements ProtocolConfiguration {
     private final Queue<ResponseTransformer> transformers = new ConcurrentLinkedDeque<>();
     private final Queue<ResponseTransformer> errorTransformers = new ConcurrentLinkedDeque<>();
     private Transcriber transcriber = new Transcriber();
+    //created in initialise(), once the server's config is final
+    private volatile StaticFileCache staticFiles;
+    private volatile FileContentCache fileContents;
+    private volatile StaticFileCompression staticCompression;
+    private volatile UploadPolicy uploadPolicy;
+    //configured like the mapper responses are written with so a body reads back the same way it's written
+    private ObjectMapper jsonMapper = new JsonTransformer().getMapper();
 
     public Map<String, HttpSession> getSessions() {
         return sessions;
@@ -51,6 +67,55 @@ public class HttpProtocolConfiguration implements ProtocolConfiguration {
         this.server = server;
     }
 
+    /**
+     * @return the cache of files resolved in the public directory, null if add_static_resource_filter is false
+     */
+    public StaticFileCache getStaticFiles() {
+        return staticFiles;
+    }
+
+    /**
+     * @return the cache of small static files' contents or null if files.content_cache_max_bytes is 0
+     */
+    public FileContentCache getFileContents() {
+        return fileContents;
+    }
+
+    /**
+     * @return picks precompressed or cached compressed representations of static files, null if neither
+     *         files.serve_precompressed nor files.compressed_cache_max_bytes are enabled
+     */
+    public StaticFileCompression getStaticCompression() {
+        return staticCompression;
+    }
+
+    /**
+     * @return how uploads are stored and limited for methods without an {@link io.higgs.http.server.resource.upload}
+     *         annotation
+     */
+    public UploadPolicy getUploadPolicy() {
+        return uploadPolicy;
+    }
+
+    /**
+     * @return the mapper {@link io.higgs.http.server.params.JsonBody} parameters are read with, by default one
+     *         configured the same as {@link JsonTransformer}'s
+     */
+    public ObjectMapper getJsonMapper() {
+        return jsonMapper;
+    }
+
+    /**
+     * Replace the mapper used to read {@link io.higgs.http.server.params.JsonBody} parameters, readers are made
+     * with it on the first request to each method so this must be set before the server starts
+     */
+    public void setJsonMapper(ObjectMapper jsonMapper) {
+        if (jsonMapper == null) {
+            throw new IllegalArgumentException("Null mapper");
+        }
+        this.jsonMapper = jsonMapper;
+    }
+
     public ParamInjector getInjector() {
         return injector;
     }
@@ -72,7 +137,21 @@ public class HttpProtocolConfiguration implements ProtocolConfiguration {
     @Override
     public void initialise(HiggsServer server) {
         this.server = server;
+        //Netty only reads these from static fields, set them once here rather than racing to set them per request
+        FilesConfig files = ((HttpConfig) server.getConfig()).files;
+        DiskFileUpload.deleteOnExitTemporaryFile = files.delete_temp_on_exit;
+        DiskFileUpload.baseDirectory = files.temp_directory;
+        DiskAttribute.deleteOnExitTemporaryFile = files.delete_temp_on_exit;
+        DiskAttribute.baseDirectory = files.temp_directory;
+        uploadPolicy = new UploadPolicy(files);
+        //initialised again, don't leave the previous watcher thread and open jars behind
+        stop();
         if (server.getConfig().add_static_resource_filter) {
+            //built here once rather than lazily so that serving a file never has to take a lock to get them
+            staticFiles = new StaticFileCache(files);
+            fileContents = files.content_cache_max_bytes > 0 ? new FileContentCache(files) : null;
+            staticCompression = files.serve_precompressed || files.compressed_cache_max_bytes > 0
+                    ? new StaticFileCompression(files, staticFiles) : null;
             transformers.add(new StaticFileTransformer(this));
         }
         if (server.getConfig().add_default_error_transformer) {
@@ -80,6 +159,9 @@ public class HttpProtocolConfiguration implements ProtocolConfiguration {
                     new JsonTransformer(),
                     new ThymeleafTransformer(((HttpConfig) this.server.getConfig()).template_config)));
         }
+        if (((HttpConfig) server.getConfig()).add_streaming_transformer) {
+            transformers.add(new StreamingTransformer((HttpConfig) server.getConfig()));
+        }
         if (server.getConfig().add_json_transformer) {
             transformers.add(new JsonTransformer());
         }
@@ -88,6 +170,15 @@ public class HttpProtocolConfiguration implements ProtocolConfiguration {
         }
     }
 
+    @Override
+    public void stop() {
+        StaticFileCache files = staticFiles;
+        if (files != null) {
+            staticFiles = null;
+            files.close();
+        }
+    }
+
     public Queue<ResponseTransformer> getTransformers() {
         return transformers;
     }
@@ -0,0 +1,34 @@
+package io.higgs.http.server.resource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the files.upload_* settings for the request bodies a method accepts, or for every method in a class.
+ * An annotation on a method replaces one on its class. e.g. a method which accepts large videos
+ * {@code @upload(maxSize = 1L << 32, directory = "/data/videos")} while every other method keeps the small default
+ * limit
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.TYPE })
+public @interface upload {
+    /**
+     * @return the largest body in bytes accepted, bigger bodies are rejected with 413 Request Entity Too Large.
+     *         0 for no limit, -1 to use files.upload_max_size
+     */
+    long maxSize() default -1;
+
+    /**
+     * @return form fields and files up to this many bytes are kept in memory, bigger ones are spooled to disk.
+     *         0 to always spool, -1 to use files.upload_memory_threshold
+     */
+    long memoryThreshold() default -1;
+
+    /**
+     * @return the directory uploaded files are moved into once the whole body has been received, empty to use
+     *         files.upload_directory
+     */
+    String directory() default "";
+}
@@ -0,0 +1,140 @@
+package io.higgs.http.server.transformers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A range of bytes requested with a Range header, see RFC 7233
+ */
+public class ByteRange {
+    /**
+     * Requests with more ranges than this are sent the whole file, lots of tiny ranges cost more than they save
+     */
+    public static final int MAX_RANGES = 32;
+    private final long start;
+    private final long end;
+
+    public ByteRange(long start, long end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException(String.format("Invalid byte range %s-%s", start, end));
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parse the value of a Range header
+     *
+     * @param header the header e.g. bytes=0-499,1000-,-500
+     * @param size   the size of the file the ranges are for
+     * @return the satisfiable ranges sorted and with overlapping ones merged, empty if none are satisfiable or
+     *         null if the header is invalid or should be ignored and the whole file sent
+     */
+    public static List<ByteRange> parse(String header, long size) {
+        header = header.trim();
+        if (!header.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : header.substring(6).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            try {
+                if (first.isEmpty()) {
+                    //suffix range, the last n bytes
+                    long n = last.isEmpty() ? -1 : Long.parseLong(last);
+                    if (n < 0) {
+                        return null;
+                    }
+                    start = Math.max(0, size - n);
+                    end = size - 1;
+                } else {
+                    start = Long.parseLong(first);
+                    end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                    if (start < 0 || end < start) {
+                        return null;
+                    }
+                    end = Math.min(end, size - 1);
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            //not satisfiable, others in the same header may be
+            if (start < size && start <= end) {
+                ranges.add(new ByteRange(start, end));
+            }
+        }
+        if (ranges.size() > MAX_RANGES) {
+            return null;
+        }
+        return merge(ranges);
+    }
+
+    private static List<ByteRange> merge(List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        Collections.sort(ranges, new Comparator<ByteRange>() {
+            @Override
+            public int compare(ByteRange a, ByteRange b) {
+                return a.start < b.start ? -1 : (a.start == b.start ? 0 : 1);
+            }
+        });
+        List<ByteRange> merged = new ArrayList<>(ranges.size());
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            ByteRange next = ranges.get(i);
+            if (next.start <= current.end + 1) {
+                current = new ByteRange(current.start, Math.max(current.end, next.end));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    /**
+     * @return the offset of the first byte
+     */
+    public long start() {
+        return start;
+    }
+
+    /**
+     * @return the offset of the last byte, inclusive
+     */
+    public long end() {
+        return end;
+    }
+
+    /**
+     * @return the number of bytes in the range
+     */
+    public long length() {
+        return end - start + 1;
+    }
+
+    /**
+     * @param size the size of the whole file
+     * @return the value of the Content-Range header for this range e.g. bytes 0-499/1234
+     */
+    public String contentRange(long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end;
+    }
+}
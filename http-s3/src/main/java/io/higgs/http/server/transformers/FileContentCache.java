@@ -0,0 +1,224 @@
+package io.higgs.http.server.transformers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import io.higgs.http.server.config.FilesConfig;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the contents of small, frequently requested static files in direct buffers so that serving them again
+ * doesn't have to open or read the file.
+ * <p/>
+ * Bounded to {@link FilesConfig#content_cache_max_bytes} in total, evicting the least recently used files first,
+ * only files up to {@link FilesConfig#content_cache_max_entry_size} are cached. A file's entry is dropped when
+ * it's requested with a different modified time to the one it was cached with. Entries in jars on the class path
+ * are cached decompressed, keyed by {@link JarFile#getKey()}.
+ * <p/>
+ * The cache splits its weight evenly between {@link #SEGMENTS} segments and evicts from a segment once that
+ * segment's share is used so an entry bigger than a segment's share is never cached, it would be evicted as soon
+ * as it was added.
+ */
+public class FileContentCache {
+    private static final int SEGMENTS = 4;
+    private final Cache<Object, Entry> cache;
+    private final long maxEntrySize;
+
+    public FileContentCache(FilesConfig conf) {
+        this(conf.content_cache_max_bytes, conf.content_cache_max_entry_size);
+    }
+
+    /**
+     * @param maxBytes     the total size of all entries, 0 to cache nothing
+     * @param maxEntrySize the size of the biggest file to cache
+     */
+    public FileContentCache(long maxBytes, long maxEntrySize) {
+        this.maxEntrySize = maxBytes > 0 ? Math.min(maxEntrySize, maxBytes / SEGMENTS) : -1;
+        cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(SEGMENTS)
+                .maximumWeight(Math.max(0, maxBytes))
+                .weigher(new Weigher<Object, Entry>() {
+                    @Override
+                    public int weigh(Object key, Entry value) {
+                        return value.body.capacity();
+                    }
+                })
+                .removalListener(new RemovalListener<Object, Entry>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<Object, Entry> notification) {
+                        Entry entry = notification.getValue();
+                        if (entry != null) {
+                            //drops the cache's reference, the buffer is freed once no body() call is using it
+                            entry.release();
+                        }
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * @param size the size of a file in bytes
+     * @return true if a file of this size can be cached
+     */
+    public boolean accepts(long size) {
+        return size >= 0 && size <= maxEntrySize;
+    }
+
+    /**
+     * @param key          the file to get or the key of an entry in a jar, see {@link JarFile#getKey()}
+     * @param lastModified the file's current modified time, if it's not the same as the cached entry's then the
+     *                     entry is removed
+     * @return the cached entry or null
+     */
+    public Entry get(Object key, long lastModified) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.lastModified != lastModified) {
+            cache.invalidate(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Read a file into a new entry and cache it
+     *
+     * @param headers the response headers which depend only on the file and can be sent for every request for it
+     * @return the entry created
+     * @throws IOException if the file can't be read
+     */
+    public Entry load(File file, long lastModified, Map<String, String> headers) throws IOException {
+        ByteBuf body;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (!accepts(size)) {
+                return null;
+            }
+            body = PooledByteBufAllocator.DEFAULT.directBuffer((int) size);
+            try {
+                while (body.isWritable()) {
+                    if (body.writeBytes(channel, body.writableBytes()) < 0) {
+                        //truncated since we got the size
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                body.release();
+                throw e;
+            }
+        }
+        Entry entry = new Entry(body, lastModified, headers);
+        cache.put(file, entry);
+        return entry;
+    }
+
+    /**
+     * Decompress an entry in a jar into a new entry and cache it, stored entries are just copied
+     *
+     * @param jar     the entry to read, cached by its {@link JarFile#getKey()}
+     * @param headers the response headers which depend only on the entry
+     * @return the entry created or null if the entry is too big or its size isn't known
+     * @throws IOException if the entry can't be read
+     */
+    public Entry load(JarFile jar, long lastModified, Map<String, String> headers) throws IOException {
+        long size = jar.getEntry().getSize();
+        if (!accepts(size)) {
+            return null;
+        }
+        ByteBuf body = PooledByteBufAllocator.DEFAULT.directBuffer((int) size);
+        try (InputStream in = jar.getInputStream()) {
+            while (body.isWritable()) {
+                if (body.writeBytes(in, body.writableBytes()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            body.release();
+            throw e;
+        }
+        Entry entry = new Entry(body, lastModified, headers);
+        cache.put(jar.getKey(), entry);
+        return entry;
+    }
+
+    /**
+     * Cache contents which have already been read or produced e.g. a file's compressed bytes
+     *
+     * @param body the contents, released when the entry is evicted
+     * @return the entry created or null if the contents are too big to cache, they're released straight away
+     */
+    public Entry put(Object key, ByteBuf body, long lastModified, Map<String, String> headers) {
+        if (!accepts(body.capacity())) {
+            body.release();
+            return null;
+        }
+        Entry entry = new Entry(body, lastModified, headers);
+        cache.put(key, entry);
+        return entry;
+    }
+
+    public static class Entry {
+        private final ByteBuf body;
+        /**
+         * The cache's reference plus one for each body() call in progress, the body is released when it drops to 0
+         * and can't be taken from 0 again so a buffer which has been released, and possibly reused by the
+         * allocator, is never retained
+         */
+        private final AtomicInteger refs = new AtomicInteger(1);
+        private final long lastModified;
+        private final Map<String, String> headers;
+
+        Entry(ByteBuf body, long lastModified, Map<String, String> headers) {
+            this.body = body;
+            this.lastModified = lastModified;
+            this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        }
+
+        /**
+         * @return a duplicate of the file's contents sharing the cached memory which must be released once
+         *         written, or null if the entry has been evicted since it was got
+         */
+        public ByteBuf body() {
+            while (true) {
+                int n = refs.get();
+                if (n == 0) {
+                    return null;
+                }
+                if (refs.compareAndSet(n, n + 1)) {
+                    break;
+                }
+            }
+            try {
+                return body.duplicate().retain();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (refs.decrementAndGet() == 0) {
+                body.release();
+            }
+        }
+
+        /**
+         * @return headers prepared when the file was loaded e.g. Content-Type and Last-Modified
+         */
+        public Map<String, String> headers() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.higgs.http.server.transformers;
+
+import io.higgs.http.server.HttpCompressor;
+import io.higgs.http.server.config.FilesConfig;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.compression.ZlibEncoder;
+import io.netty.handler.codec.http.HttpContentEncoder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedNioFile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+
+/**
+ * How the contents of a file are written to a channel.
+ * {@link #select(ChannelPipeline, FilesConfig)} picks one depending on what's in the pipeline.
+ */
+public enum FileTransfer {
+    /**
+     * A {@link DefaultFileRegion}, the file is sent with {@link FileChannel#transferTo(long, long,
+     * java.nio.channels.WritableByteChannel)} and its contents never copied into user space.
+     * Only possible when nothing in the pipeline needs to see the bytes
+     */
+    ZERO_COPY {
+        @Override
+        public Object content(FileChannel file, long offset, long length, FilesConfig conf) {
+            return new DefaultFileRegion(file, offset, length);
+        }
+    },
+    /**
+     * A {@link ChunkedNioFile} read {@link FilesConfig#transfer_chunk_size} bytes at a time into buffers from
+     * the channel's allocator, for when the bytes have to be encrypted or compressed before they're sent
+     */
+    CHUNKED {
+        @Override
+        public Object content(FileChannel file, long offset, long length, FilesConfig conf) throws IOException {
+            return new ChunkedNioFile(file, offset, length, conf.transfer_chunk_size);
+        }
+    };
+
+    /**
+     * @param file   the file to send, closed once the content returned has been written
+     * @param offset the position in the file to start from
+     * @param length the number of bytes to send
+     * @return the object to write to the channel
+     */
+    public abstract Object content(FileChannel file, long offset, long length, FilesConfig conf) throws IOException;
+
+    /**
+     * @return {@link #ZERO_COPY} if enabled and the pipeline has no handler which encrypts or compresses what's
+     *         written otherwise {@link #CHUNKED}
+     */
+    public static FileTransfer select(ChannelPipeline pipeline, FilesConfig conf) {
+        if (!conf.zero_copy) {
+            return CHUNKED;
+        }
+        for (Map.Entry<String, ChannelHandler> e : pipeline) {
+            ChannelHandler h = e.getValue();
+            //HttpCompressor never compresses file contents, static files are compressed by StaticFileWriter
+            if (h instanceof SslHandler || h instanceof ZlibEncoder
+                    || h instanceof HttpContentEncoder && !(h instanceof HttpCompressor)) {
+                return CHUNKED;
+            }
+        }
+        return ZERO_COPY;
+    }
+}
@@ -1,5 +1,6 @@
 package io.higgs.http.server.transformers;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -20,7 +21,8 @@ public class JarFile {
     ZipEntry entry;
 
     /**
-     * An input stream opened to the file
+     * An input stream opened to the file by whoever created this, handed out by the first call to
+     * {@link #getInputStream()} only
      */
     InputStream inputStream;
 
@@ -30,6 +32,10 @@ public class JarFile {
         this.inputStream = inputStream;
     }
 
+    public JarFile(ZipFile zip, ZipEntry entry) {
+        this(zip, entry, null);
+    }
+
     public ZipFile getZip() {
         return zip;
     }
@@ -38,7 +44,23 @@ public class JarFile {
         return entry;
     }
 
-    public InputStream getInputStream() {
-        return inputStream;
+    /**
+     * @return a new input stream of the entry's uncompressed contents, the caller must close it
+     * @throws IOException if the entry can't be read from the jar
+     */
+    public InputStream getInputStream() throws IOException {
+        InputStream in = inputStream;
+        if (in != null) {
+            inputStream = null;
+            return in;
+        }
+        return zip.getInputStream(entry);
+    }
+
+    /**
+     * @return identifies the entry across instances e.g. /app.jar!/public/index.html
+     */
+    public String getKey() {
+        return zip.getName() + "!/" + entry.getName();
     }
 }
@@ -1,8 +1,9 @@
 package io.higgs.http.server.transformers;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.introspect.VisibilityChecker;
 import io.higgs.http.server.HttpRequest;
@@ -10,6 +11,8 @@ import io.higgs.http.server.HttpResponse;
 import io.higgs.http.server.HttpStatus;
 import io.higgs.http.server.protocol.HttpMethod;
 import io.higgs.http.server.resource.MediaType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
@@ -17,14 +20,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * Serialises responses as JSON straight into the response's buffer, which is pooled when the server's allocator is.
+ * If jackson-module-afterburner is on the class path it's registered so that POJOs are serialised with generated
+ * byte code instead of reflection.
+ *
  * @author Courtney Robinson <courtney@crlog.info>
  */
 public class JsonTransformer extends BaseTransformer {
+    private static final String AFTERBURNER = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+    private static final byte[] EMPTY_OBJECT = { '{', '}' };
     private Logger log = LoggerFactory.getLogger(getClass());
     protected final ObjectMapper mapper = new ObjectMapper();
+    /**
+     * A writer for each type of response serialised so far, they're immutable and resolve the type's serializer once
+     */
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
 
     public JsonTransformer() {
         mapper.configure(SerializationFeature.WRITE_NULL_MAP_VALUES, true);
@@ -35,6 +51,39 @@ public class JsonTransformer extends BaseTransformer {
         visibilityChecker.withSetterVisibility(JsonAutoDetect.Visibility.ANY);
         visibilityChecker.withCreatorVisibility(JsonAutoDetect.Visibility.ANY);
         mapper.setVisibilityChecker(visibilityChecker);
+        registerAfterburner();
+    }
+
+    private void registerAfterburner() {
+        try {
+            mapper.registerModule((Module) Class.forName(AFTERBURNER).newInstance());
+        } catch (ClassNotFoundException e) {
+            //optional, serialise with reflection
+        } catch (InstantiationException | IllegalAccessException | LinkageError e) {
+            log.warn(String.format("Unable to register %s, JSON is serialised without it", AFTERBURNER), e);
+        }
+    }
+
+    /**
+     * @return the mapper responses are serialised with, configured once in the constructor
+     */
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * @return the writer used to serialise responses of the given type
+     */
+    protected ObjectWriter writer(Class<?> type) {
+        ObjectWriter writer = writers.get(type);
+        if (writer == null) {
+            writer = mapper.writerWithType(type);
+            ObjectWriter existing = writers.putIfAbsent(type, writer);
+            if (existing != null) {
+                writer = existing;
+            }
+        }
+        return writer;
     }
 
     @Override
@@ -65,23 +114,25 @@ public class JsonTransformer extends BaseTransformer {
     public void transform(Object response, HttpRequest request, HttpResponse res, MediaType mediaType,
                           HttpMethod method,
                           ChannelHandlerContext ctx, HttpResponseStatus status) {
-        byte[] data = null;
+        ByteBuf content = res.content();
+        int start = content.writerIndex();
         if (response == null) {
-            data = "{}".getBytes();
+            content.writeBytes(EMPTY_OBJECT);
         } else {
+            //Jackson encodes into its own recycled buffer and flushes that into the response, no byte[] per response
             try {
-                data = mapper.writeValueAsBytes(response);
-            } catch (JsonProcessingException e) {
+                writer(response.getClass()).writeValue(new ByteBufOutputStream(content), response);
+            } catch (IOException e) {
                 log.warn("Unable to transform response to JSON", e);
+                //drop whatever was written before it failed
+                content.writerIndex(start);
                 //todo use template for 500
                 res.setStatus(HttpStatus.INTERNAL_SERVER_ERROR);
+                return;
             }
         }
-        if (data != null) {
-            res.setStatus(status == null ? HttpStatus.OK : status);
-            res.content().writeBytes(data);
-            HttpHeaders.setContentLength(res, data.length);
-        }
+        res.setStatus(status == null ? HttpStatus.OK : status);
+        HttpHeaders.setContentLength(res, content.readableBytes());
     }
 
     @Override
@@ -0,0 +1,152 @@
+package io.higgs.http.server.transformers;
+
+import io.higgs.http.server.AcceptEncoding;
+import io.higgs.http.server.StaticFile;
+import io.higgs.http.server.StaticFileCache;
+import io.higgs.http.server.config.FilesConfig;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Picks a compressed representation of a static file for a request's Accept-Encoding.
+ * A precompressed sibling e.g. app.js.br or app.js.gz is preferred, found through the {@link StaticFileCache} so
+ * looking for one doesn't touch the disk. Otherwise text files are gzipped once and the compressed bytes kept in a
+ * {@link FileContentCache} keyed by the file and its modified time, compressing for every request would cost far
+ * more CPU than sending the bytes saves.
+ * <p/>
+ * Brotli is only served precompressed, there's no encoder in the JDK.
+ */
+public class StaticFileCompression {
+    private static final String[][] PRECOMPRESSED = {{"br", ".br"}, {"gzip", ".gz"}};
+    private final FilesConfig conf;
+    private final StaticFileCache files;
+    private final FileContentCache compressed;
+    private final String[] types;
+
+    public StaticFileCompression(FilesConfig conf, StaticFileCache files) {
+        this.conf = conf;
+        this.files = files;
+        compressed = conf.compressed_cache_max_bytes > 0 ?
+                new FileContentCache(conf.compressed_cache_max_bytes, conf.compress_max_size) : null;
+        types = conf.compressible_types.split(",");
+    }
+
+    /**
+     * @return true if files of the given type should be gzipped when no sibling exists
+     */
+    public boolean isCompressible(String contentType) {
+        if (compressed == null || contentType == null) {
+            return false;
+        }
+        for (String type : types) {
+            if (!type.isEmpty() && contentType.startsWith(type.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param file           the canonical file being requested
+     * @param lastModified   the file's modified time, older siblings are ignored
+     * @param acceptEncoding the request's Accept-Encoding header
+     * @return the most preferred sibling the client accepts or null if there's none
+     */
+    public Variant precompressed(File file, long lastModified, String acceptEncoding) {
+        if (!conf.serve_precompressed || acceptEncoding == null) {
+            return null;
+        }
+        Variant best = null;
+        float bestQuality = 0;
+        for (String[] coding : PRECOMPRESSED) {
+            float q = AcceptEncoding.quality(acceptEncoding, coding[0]);
+            if (q <= bestQuality) {
+                continue;
+            }
+            StaticFile sibling = files.sibling(file, coding[1]);
+            if (sibling.getKind() == StaticFile.Kind.FILE && sibling.getLastModified() >= lastModified) {
+                best = new Variant(coding[0], sibling);
+                bestQuality = q;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return true if the file should be gzipped on the fly for this request
+     */
+    public boolean shouldCompress(String contentType, long size, String acceptEncoding) {
+        return size >= conf.compress_min_size && size <= conf.compress_max_size && isCompressible(contentType)
+                && AcceptEncoding.quality(acceptEncoding, "gzip") > 0;
+    }
+
+    /**
+     * @return the gzipped contents of the file, compressed now if they aren't cached or the file has changed,
+     *         null if they're too big to cache
+     * @throws IOException if the file can't be read
+     */
+    public FileContentCache.Entry gzip(File file, long lastModified) throws IOException {
+        FileContentCache.Entry entry = compressed.get(file, lastModified);
+        if (entry != null) {
+            return entry;
+        }
+        byte[] contents = Files.readAllBytes(file.toPath());
+        ByteBuf body = PooledByteBufAllocator.DEFAULT.directBuffer(contents.length / 2 + 64);
+        try (OutputStream out = new LevelGZIPOutputStream(new ByteBufOutputStream(body), conf.compression_level)) {
+            out.write(contents);
+        } catch (IOException e) {
+            body.release();
+            throw e;
+        }
+        return compressed.put(file, body, lastModified, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * @return the entity tag of a representation compressed on the fly, distinct from the uncompressed one's
+     */
+    public static String etag(String etag, String coding) {
+        if (etag == null || !etag.endsWith("\"")) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + coding + "\"";
+    }
+
+    public static class Variant {
+        private final String coding;
+        private final StaticFile file;
+
+        Variant(String coding, StaticFile file) {
+            this.coding = coding;
+            this.file = file;
+        }
+
+        /**
+         * @return the Content-Encoding e.g. gzip
+         */
+        public String getCoding() {
+            return coding;
+        }
+
+        /**
+         * @return the compressed sibling
+         */
+        public StaticFile getFile() {
+            return file;
+        }
+    }
+
+    private static class LevelGZIPOutputStream extends GZIPOutputStream {
+        LevelGZIPOutputStream(OutputStream out, int level) throws IOException {
+            super(out);
+            def.setLevel(level);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package io.higgs.http.server.transformers;
 
 import io.higgs.http.server.HttpRequest;
 import io.higgs.http.server.HttpResponse;
+import io.higgs.http.server.StaticFile;
+import io.higgs.http.server.StaticFileMethod;
 import io.higgs.http.server.config.HttpConfig;
 import io.higgs.http.server.protocol.HttpMethod;
 import io.higgs.http.server.protocol.HttpProtocolConfiguration;
@@ -75,6 +77,8 @@ public class StaticFileTransformer extends BaseTransformer {
                 writeResponseFromStream((InputStream) response, res, request, mediaType, method, ctx);
             } else if (response instanceof File) {
                 writeResponseFromFile((File) response, res, request, mediaType, method, ctx, res.content());
+            } else if (response instanceof JarFile) {
+                writeResponseFromJar((JarFile) response, res, request, method, ctx);
             } else {
                 res.setStatus(HttpResponseStatus.INTERNAL_SERVER_ERROR);
                 log.warn(String.format("Expecting an input stream or file,%s received", response.getClass().getName()));
@@ -135,7 +139,19 @@ public class StaticFileTransformer extends BaseTransformer {
     private void writeResponseFromFile(File file, final HttpResponse res, final HttpRequest request,
                                        MediaType mediaType,
                                        HttpMethod method, final ChannelHandlerContext ctx, ByteBuf buffer) {
-        res.setManagedWriter(new StaticFileWriter(ctx, res, file, request, formats,conf));
+        StaticFile meta = method instanceof StaticFileMethod ? ((StaticFileMethod) method).getStaticFile() : null;
+        StaticFileWriter writer = new StaticFileWriter(ctx, res, file, request, formats, conf, meta);
+        writer.setContentCache(config.getFileContents());
+        writer.setCompression(config.getStaticCompression());
+        res.setManagedWriter(writer);
+    }
+
+    private void writeResponseFromJar(JarFile file, HttpResponse res, HttpRequest request, HttpMethod method,
+                                      ChannelHandlerContext ctx) {
+        StaticFile meta = method instanceof StaticFileMethod ? ((StaticFileMethod) method).getStaticFile() : null;
+        StaticFileWriter writer = new StaticFileWriter(ctx, res, file, request, formats, conf, meta);
+        writer.setContentCache(config.getFileContents());
+        res.setManagedWriter(writer);
     }
 
     @Override
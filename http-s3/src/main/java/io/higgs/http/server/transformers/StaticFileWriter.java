@@ -4,6 +4,7 @@ import io.higgs.http.server.HttpRequest;
 import io.higgs.http.server.HttpResponse;
 import io.higgs.http.server.HttpStatus;
 import io.higgs.http.server.ManagedWriter;
+import io.higgs.http.server.StaticFile;
 import io.higgs.http.server.StaticFileMethod;
 import io.higgs.http.server.config.HttpConfig;
 import io.netty.buffer.ByteBuf;
@@ -14,9 +15,10 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelProgressiveFuture;
 import io.netty.channel.ChannelProgressiveFutureListener;
 import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.LastHttpContent;
-import io.netty.handler.stream.ChunkedFile;
+import io.netty.handler.stream.ChunkedStream;
 import io.netty.util.CharsetUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,22 +27,41 @@ import javax.activation.MimetypesFileTypeMap;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
 
+import static io.netty.handler.codec.http.HttpHeaders.Names.ACCEPT_ENCODING;
+import static io.netty.handler.codec.http.HttpHeaders.Names.ACCEPT_RANGES;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CACHE_CONTROL;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_ENCODING;
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_RANGE;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpHeaders.Names.DATE;
+import static io.netty.handler.codec.http.HttpHeaders.Names.ETAG;
 import static io.netty.handler.codec.http.HttpHeaders.Names.EXPIRES;
+import static io.netty.handler.codec.http.HttpHeaders.Names.IF_MODIFIED_SINCE;
+import static io.netty.handler.codec.http.HttpHeaders.Names.IF_NONE_MATCH;
+import static io.netty.handler.codec.http.HttpHeaders.Names.IF_RANGE;
 import static io.netty.handler.codec.http.HttpHeaders.Names.LAST_MODIFIED;
+import static io.netty.handler.codec.http.HttpHeaders.Names.RANGE;
+import static io.netty.handler.codec.http.HttpHeaders.Names.VARY;
 import static io.netty.handler.codec.http.HttpHeaders.isKeepAlive;
 import static io.netty.handler.codec.http.HttpHeaders.setContentLength;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
@@ -55,45 +76,125 @@ public class StaticFileWriter implements ManagedWriter {
     public static final String HTTP_DATE_GMT_TIMEZONE = "GMT";
     public static final int HTTP_CACHE_SECONDS = 60;
     private static final Pattern ALLOWED_FILE_NAME = Pattern.compile("[A-Za-z0-9][-_A-Za-z0-9\\.]*");
-    private final File file;
+    //file, lastModified, size and etag are replaced by a precompressed sibling's when one is sent instead
+    private File file;
+    private final JarFile jar;
     private final ChannelHandlerContext ctx;
     private final io.netty.handler.codec.http.HttpResponse res = new DefaultHttpResponse(HTTP_1_1, OK);
     private final HttpResponse higgsPreparedResponse;
     private final HttpRequest request;
     private final HttpConfig conf;
-    private File base;
+    private final boolean directory;
+    private long lastModified;
+    private long size;
+    private String etag;
+    //the etag to restore if the file can't be gzipped after all
+    private String uncompressedEtag;
+    private String contentType;
+    private FileContentCache contentCache;
+    private StaticFileCompression compression;
 
     public boolean done;
 
     public StaticFileWriter(ChannelHandlerContext ctx, HttpResponse resIgnored, File file, HttpRequest request,
                             Map<String,
                                     String> formats, HttpConfig conf) {
-        base = StaticFileMethod.baseUri(conf.files.public_directory);
+        this(ctx, resIgnored, file, request, formats, conf, null);
+    }
+
+    /**
+     * @param meta what's known about the file from {@link io.higgs.http.server.StaticFileCache}, if not null
+     *             the file's type, content type and modified time are taken from it instead of the file system
+     */
+    public StaticFileWriter(ChannelHandlerContext ctx, HttpResponse resIgnored, File file, HttpRequest request,
+                            Map<String, String> formats, HttpConfig conf, StaticFile meta) {
         this.conf = conf;
         this.ctx = ctx;
         this.file = file;
+        this.jar = null;
         this.request = request;
         higgsPreparedResponse = resIgnored;
-        if (file.isDirectory()) {
+        directory = meta != null ? meta.getKind() == StaticFile.Kind.DIRECTORY : file.isDirectory();
+        if (directory) {
+            lastModified = -1;
+            size = -1;
+            etag = null;
             sendListing();
             return;
         }
-        MimetypesFileTypeMap mimeTypesMap = new MimetypesFileTypeMap();
-        String contentType = mimeTypesMap.getContentType(file.getPath());
-        //if its a supported text file then set to text mime type
-        for (final String ext : formats.keySet()) {
-            if (file.getName().endsWith(ext)) {
-                contentType = formats.get(ext);
-                break;
+        lastModified = meta != null ? meta.getLastModified() : file.lastModified();
+        size = meta != null ? meta.getSize() : -1;
+        etag = meta != null ? meta.getEtag() : etag(file);
+        contentType = meta != null ? meta.getContentType() : null;
+        if (contentType == null) {
+            contentType = new MimetypesFileTypeMap().getContentType(file.getPath());
+            //if its a supported text file then set to text mime type
+            for (final String ext : formats.keySet()) {
+                if (file.getName().endsWith(ext)) {
+                    contentType = formats.get(ext);
+                    break;
+                }
             }
         }
-        res.headers().set(CONTENT_TYPE, contentType);
-        setDateAndCacheHeaders();
-        if (isKeepAlive(request)) {
-            res.headers().set(CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+    }
+
+    /**
+     * Write an entry from a jar on the class path, Range requests get the whole entry
+     *
+     * @param jar  the entry to write, its input stream is closed once written
+     * @param meta what's known about the entry from {@link io.higgs.http.server.StaticFileCache} or null
+     */
+    public StaticFileWriter(ChannelHandlerContext ctx, HttpResponse resIgnored, JarFile jar, HttpRequest request,
+                            Map<String, String> formats, HttpConfig conf, StaticFile meta) {
+        this.conf = conf;
+        this.ctx = ctx;
+        this.file = null;
+        this.jar = jar;
+        this.request = request;
+        higgsPreparedResponse = resIgnored;
+        directory = false;
+        ZipEntry entry = jar.getEntry();
+        lastModified = entry.getTime();
+        size = entry.getSize();
+        etag = StaticFile.etag(entry);
+        contentType = meta != null ? meta.getContentType() : null;
+        if (contentType == null) {
+            contentType = new MimetypesFileTypeMap().getContentType(entry.getName());
+            for (final String ext : formats.keySet()) {
+                if (entry.getName().endsWith(ext)) {
+                    contentType = formats.get(ext);
+                    break;
+                }
+            }
         }
     }
 
+    private static String etag(File file) {
+        try {
+            return StaticFile.etag(Files.readAttributes(file.toPath(), BasicFileAttributes.class));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Serve small files from the given cache instead of reading them from disk for every request
+     *
+     * @param contentCache the cache or null to always read the file
+     */
+    public void setContentCache(FileContentCache contentCache) {
+        this.contentCache = contentCache;
+    }
+
+    /**
+     * Send precompressed siblings or cached gzipped copies of files when the client accepts them
+     *
+     * @param compression the compression to use or null to always send files as they are
+     */
+    public void setCompression(StaticFileCompression compression) {
+        this.compression = compression;
+    }
+
     /**
      * If the file is a directory then the response object Higgs created is sent. Notice that
      * {@link HttpResponse} extends {@link io.netty.handler.codec.http.DefaultFullHttpResponse}
@@ -106,84 +207,485 @@ public class StaticFileWriter implements ManagedWriter {
      * @return the final write future
      */
     public ChannelFuture doWrite() {
-        if (file.isDirectory()) {
+        if (directory) {
             //send full http response
             return ctx.writeAndFlush(higgsPreparedResponse);
         }
+        String range = request.headers().get(RANGE);
+        //ranges are always of the uncompressed file
+        boolean gzip = compression != null && jar == null && range == null && negotiateEncoding();
+        if (isNotModified()) {
+            return writeNotModified();
+        }
+        if (gzip) {
+            ChannelFuture compressed = writeCompressed();
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        if (range != null && jar == null && ifRangeMatches()) {
+            ChannelFuture partial = writeRanges(range);
+            if (partial != null) {
+                return partial;
+            }
+        }
+        if (contentCache != null) {
+            ChannelFuture cached = writeCached();
+            if (cached != null) {
+                return cached;
+            }
+        }
+        if (jar != null) {
+            return writeJarEntry();
+        }
+        setHeaders();
         //otherwise use an "incomplete" response
-        ChannelFuture writeFuture;
+        RandomAccessFile raf;
         try {
-            RandomAccessFile raf;
-            try {
-                raf = new RandomAccessFile(file, "r");
-            } catch (FileNotFoundException fnfe) {
-                res.setStatus(HttpStatus.NOT_FOUND);
-                return ctx.writeAndFlush(res);
+            raf = new RandomAccessFile(file, "r");
+        } catch (FileNotFoundException fnfe) {
+            res.setStatus(HttpStatus.NOT_FOUND);
+            return ctx.writeAndFlush(res);
+        }
+        final long fileLength;
+        Object content;
+        try {
+            fileLength = raf.length();
+            //created before the headers are written, a chunked transfer can fail setting the file's position
+            content = FileTransfer.select(ctx.pipeline(), conf.files).content(raf.getChannel(), 0, fileLength,
+                    conf.files);
+        } catch (IOException e) {
+            close(raf);
+            done = true;
+            log.warn("Error reading file", e);
+            res.setStatus(HttpStatus.INTERNAL_SERVER_ERROR);
+            return ctx.writeAndFlush(res);
+        }
+        res.setStatus(HttpStatus.OK);
+        setContentLength(res, fileLength);
+        ctx.write(res);
+        ChannelFuture writeFuture = ctx.write(content, ctx.newProgressivePromise());
+
+        writeFuture.addListener(new ChannelProgressiveFutureListener() {
+            @Override
+            public void operationProgressed(ChannelProgressiveFuture future, long progress, long total) {
+                //TODO emit notification of file progress?
+            }
+
+            @Override
+            public void operationComplete(ChannelProgressiveFuture future) throws Exception {
+                //mark as done sending
+                done = true;
+            }
+        });
+        ChannelFuture lastWrite = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        // Decide whether to close the connection or not.
+        if (!isKeepAlive(request)) {
+            // Close the connection when the whole content is written out.
+            lastWrite.addListener(ChannelFutureListener.CLOSE);
+        }
+        return writeFuture;
+    }
+
+    /**
+     * Write the file from {@link #contentCache}, loading it into the cache first if it's small enough.
+     * The headers which only depend on the file are prepared once, when it's loaded
+     *
+     * @return the final write future or null if the file can't be served from the cache
+     */
+    protected ChannelFuture writeCached() {
+        long length = size >= 0 || jar != null ? size : file.length();
+        if (!contentCache.accepts(length)) {
+            return null;
+        }
+        FileContentCache.Entry entry = contentCache.get(jar != null ? jar.getKey() : file, lastModified);
+        if (entry == null) {
+            setHeaders();
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String name : new String[]{CONTENT_TYPE, CONTENT_ENCODING, VARY, ACCEPT_RANGES,
+                CACHE_CONTROL, LAST_MODIFIED, ETAG}) {
+                if (res.headers().contains(name)) {
+                    headers.put(name, res.headers().get(name));
+                }
             }
-            final long fileLength;
             try {
-                fileLength = raf.length();
+                entry = jar != null ? contentCache.load(jar, lastModified, headers)
+                        : contentCache.load(file, lastModified, headers);
             } catch (IOException e) {
-                log.warn("Error reading file", e);
-                res.setStatus(HttpStatus.INTERNAL_SERVER_ERROR);
-                return ctx.writeAndFlush(res);
+                log.debug(String.format("Unable to cache %s", jar != null ? jar.getKey() : file), e);
+                return null;
             }
-            res.setStatus(HttpStatus.OK);
-            setContentLength(res, fileLength);
-            ctx.write(res);
-            writeFuture = ctx.write(new ChunkedFile(raf, 0, fileLength, conf.files.chunk_size),
-                    ctx.newProgressivePromise());
+            if (entry == null) {
+                return null;
+            }
+        } else {
+            for (Map.Entry<String, String> header : entry.headers().entrySet()) {
+                res.headers().set(header.getKey(), header.getValue());
+            }
+            setDateHeaders(newDateFormatter());
+            setConnectionHeader();
+        }
+        ByteBuf body = entry.body();
+        if (body == null) {
+            //evicted in between
+            return null;
+        }
+        res.setStatus(HttpStatus.OK);
+        setContentLength(res, body.readableBytes());
+        ctx.write(res);
+        return complete(ctx.writeAndFlush(new DefaultLastHttpContent(body)));
+    }
 
-            writeFuture.addListener(new ChannelProgressiveFutureListener() {
-                @Override
-                public void operationProgressed(ChannelProgressiveFuture future, long progress, long total) {
-                    //TODO emit notification of file progress?
-                }
+    /**
+     * Choose the representation to send for the request's Accept-Encoding. A precompressed sibling replaces the
+     * file, everything after (conditional requests, the content cache, zero copy) then applies to the sibling
+     *
+     * @return true if the file should be gzipped on the fly instead
+     */
+    protected boolean negotiateEncoding() {
+        String accept = request.headers().get(ACCEPT_ENCODING);
+        StaticFileCompression.Variant variant = compression.precompressed(file, lastModified, accept);
+        if (variant != null || compression.isCompressible(contentType)) {
+            res.headers().set(VARY, ACCEPT_ENCODING);
+        }
+        if (variant != null) {
+            StaticFile sibling = variant.getFile();
+            file = sibling.getFile();
+            //the sibling's own time so the content cache doesn't keep serving an older copy of it
+            lastModified = sibling.getLastModified();
+            size = sibling.getSize();
+            etag = sibling.getEtag();
+            res.headers().set(CONTENT_ENCODING, variant.getCoding());
+            return false;
+        }
+        if (compression.shouldCompress(contentType, size >= 0 ? size : file.length(), accept)) {
+            uncompressedEtag = etag;
+            etag = StaticFileCompression.etag(etag, HttpHeaders.Values.GZIP);
+            res.headers().set(CONTENT_ENCODING, HttpHeaders.Values.GZIP);
+            return true;
+        }
+        return false;
+    }
 
-                @Override
-                public void operationComplete(ChannelProgressiveFuture future) throws Exception {
-                    //mark as done sending
-                    done = true;
+    /**
+     * Write the gzipped file, compressing it first if this is the first request for it since it last changed
+     *
+     * @return the final write future or null if the compressed file isn't available and the file should be sent
+     *         uncompressed, the response's Content-Encoding and entity tag are put back to the uncompressed file's
+     */
+    protected ChannelFuture writeCompressed() {
+        ByteBuf body = null;
+        try {
+            //retried once in case the entry is evicted between getting it and its contents
+            for (int i = 0; i < 2 && body == null; i++) {
+                FileContentCache.Entry entry = compression.gzip(file, lastModified);
+                if (entry == null) {
+                    break;
                 }
-            });
-            ChannelFuture lastWrite = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
-            // Decide whether to close the connection or not.
-            if (!isKeepAlive(request)) {
-                // Close the connection when the whole content is written out.
-                lastWrite.addListener(ChannelFutureListener.CLOSE);
+                body = entry.body();
             }
         } catch (IOException e) {
-            done = true;
-            log.warn("Error writing chunk", e);
+            log.warn(String.format("Error compressing %s", file), e);
+        }
+        if (body == null) {
+            res.headers().remove(CONTENT_ENCODING);
+            etag = uncompressedEtag;
+            return null;
+        }
+        setHeaders();
+        res.setStatus(HttpStatus.OK);
+        setContentLength(res, body.readableBytes());
+        ctx.write(res);
+        return complete(ctx.writeAndFlush(new DefaultLastHttpContent(body)));
+    }
+
+    /**
+     * Stream an entry from a jar, decompressing it if it was deflated. Entries whose size isn't known are sent
+     * without a Content-Length and delimited by closing the connection
+     */
+    protected ChannelFuture writeJarEntry() {
+        setHeaders();
+        InputStream in;
+        try {
+            in = jar.getInputStream();
+        } catch (IOException e) {
+            log.warn(String.format("Error reading %s", jar.getKey()), e);
             res.setStatus(HttpStatus.INTERNAL_SERVER_ERROR);
-            writeFuture = ctx.writeAndFlush(res);
+            return ctx.writeAndFlush(res);
         }
-        return writeFuture;
+        res.setStatus(HttpStatus.OK);
+        if (size >= 0) {
+            setContentLength(res, size);
+        } else {
+            HttpHeaders.setKeepAlive(res, false);
+        }
+        ctx.write(res);
+        ctx.write(new ChunkedStream(in, conf.files.chunk_size));
+        ChannelFuture lastWrite = complete(ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT));
+        if (size < 0 && isKeepAlive(request)) {
+            lastWrite.addListener(ChannelFutureListener.CLOSE);
+        }
+        return lastWrite;
+    }
+
+    /**
+     * Send the parts of the file asked for with a Range header, see RFC 7233.
+     * A single range is sent as the body of a 206, multiple ranges as the parts of a multipart/byteranges body.
+     * Each range is sent from its own file channel because a {@link io.netty.channel.FileRegion} or
+     * {@link io.netty.handler.stream.ChunkedNioFile} closes the channel it's given once written
+     *
+     * @param header the value of the Range header
+     * @return the final write future or null if the header should be ignored and the whole file sent
+     */
+    protected ChannelFuture writeRanges(String header) {
+        long length = size >= 0 ? size : file.length();
+        List<ByteRange> ranges = ByteRange.parse(header, length);
+        if (ranges == null) {
+            return null;
+        }
+        setHeaders();
+        if (ranges.isEmpty()) {
+            res.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            res.headers().set(CONTENT_RANGE, "bytes */" + length);
+            setContentLength(res, 0);
+            ctx.write(res);
+            return complete(ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT));
+        }
+        List<RandomAccessFile> files = new ArrayList<>(ranges.size());
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                files.add(new RandomAccessFile(file, "r"));
+            }
+        } catch (FileNotFoundException fnfe) {
+            close(files);
+            res.setStatus(HttpStatus.NOT_FOUND);
+            return ctx.writeAndFlush(res);
+        }
+        //build every part's content first, creating a chunked transfer can fail and nothing must be written yet
+        FileTransfer transfer = FileTransfer.select(ctx.pipeline(), conf.files);
+        List<Object> contents = new ArrayList<>(ranges.size());
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                ByteRange range = ranges.get(i);
+                contents.add(transfer.content(files.get(i).getChannel(), range.start(), range.length(), conf.files));
+            }
+        } catch (IOException e) {
+            close(files);
+            log.warn(String.format("Error sending ranges %s of %s", header, file), e);
+            res.setStatus(HttpStatus.INTERNAL_SERVER_ERROR);
+            return ctx.writeAndFlush(res);
+        }
+        res.setStatus(HttpStatus.PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            res.headers().set(CONTENT_RANGE, range.contentRange(length));
+            setContentLength(res, range.length());
+            ctx.write(res);
+            ctx.write(contents.get(0));
+        } else {
+            String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong());
+            List<ByteBuf> partHeaders = new ArrayList<>(ranges.size());
+            long contentLength = 0;
+            for (ByteRange range : ranges) {
+                ByteBuf part = Unpooled.copiedBuffer("\r\n--" + boundary + "\r\n"
+                        + CONTENT_TYPE + ": " + contentType + "\r\n"
+                        + CONTENT_RANGE + ": " + range.contentRange(length) + "\r\n\r\n", CharsetUtil.US_ASCII);
+                partHeaders.add(part);
+                contentLength += part.readableBytes() + range.length();
+            }
+            ByteBuf end = Unpooled.copiedBuffer("\r\n--" + boundary + "--\r\n", CharsetUtil.US_ASCII);
+            contentLength += end.readableBytes();
+            res.headers().set(CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary);
+            setContentLength(res, contentLength);
+            ctx.write(res);
+            for (int i = 0; i < ranges.size(); i++) {
+                ctx.write(partHeaders.get(i));
+                ctx.write(contents.get(i));
+            }
+            ctx.write(end);
+        }
+        return complete(ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT));
+    }
+
+    private void close(List<RandomAccessFile> files) {
+        for (RandomAccessFile raf : files) {
+            close(raf);
+        }
+    }
+
+    private void close(RandomAccessFile raf) {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            log.debug("", e);
+        }
+    }
+
+    /**
+     * Evaluates If-Range, see RFC 7233. The Range header is only honoured if the validator matches exactly, an
+     * entity tag must be strong and equal to the current one, a date must be the file's modified time
+     *
+     * @return true if there's no If-Range or it matches the file
+     */
+    protected boolean ifRangeMatches() {
+        return ifRangeMatches(request.headers().get(IF_RANGE), etag, lastModified);
+    }
+
+    /**
+     * @param ifRange      the value of an If-Range header, an entity tag or an HTTP date, may be null
+     * @param etag         the file's current entity tag, may be null
+     * @param lastModified the file's modified time in milliseconds
+     * @return true if there's no If-Range or it matches the file, see {@link #ifRangeMatches()}
+     */
+    public static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            //strong comparison, a weak tag never matches
+            return etag != null && !etag.startsWith("W/") && ifRange.equals(etag);
+        }
+        try {
+            return lastModified > 0 && lastModified / 1000 == newDateFormatter().parse(ifRange).getTime() / 1000;
+        } catch (ParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Evaluates the request's validators against the file, see RFC 7232.
+     * If-None-Match takes precedence, If-Modified-Since is only used when it isn't present
+     *
+     * @return true if the client's copy of the file is current
+     */
+    protected boolean isNotModified() {
+        String ifNoneMatch = request.headers().get(IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return etag != null && etagMatches(ifNoneMatch, etag);
+        }
+        String ifModifiedSince = request.headers().get(IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null && lastModified > 0) {
+            try {
+                Date since = newDateFormatter().parse(ifModifiedSince);
+                // Only compare up to the second because the datetime format we send to the client
+                // does not have milliseconds
+                return lastModified / 1000 <= since.getTime() / 1000;
+            } catch (ParseException e) {
+                log.debug(String.format("Ignoring unparseable If-Modified-Since %s", ifModifiedSince));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param header the value of an If-None-Match header, * or a comma separated list of entity tags
+     * @param etag   the current tag
+     * @return true if any tag in the header matches, using weak comparison as RFC 7232 requires for If-None-Match
+     */
+    public static boolean etagMatches(String header, String etag) {
+        if (header.trim().equals("*")) {
+            return true;
+        }
+        String current = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String tag : header.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Send a bodiless 304 with the same validators and caching headers a full response would have
+     */
+    protected ChannelFuture writeNotModified() {
+        res.setStatus(HttpStatus.NOT_MODIFIED);
+        setDateAndCacheHeaders();
+        setConnectionHeader();
+        ctx.write(res);
+        return complete(ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT));
+    }
+
+    /**
+     * Marks the writer as done once the last write completes and closes the connection after it if the request
+     * wasn't keep alive
+     *
+     * @return the last write
+     */
+    protected ChannelFuture complete(ChannelFuture lastWrite) {
+        lastWrite.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                done = true;
+            }
+        });
+        if (!isKeepAlive(request)) {
+            lastWrite.addListener(ChannelFutureListener.CLOSE);
+        }
+        return lastWrite;
     }
 
     public boolean isDone() {
         return done;
     }
 
-    private void setDateAndCacheHeaders() {
+    private void setHeaders() {
+        res.headers().set(CONTENT_TYPE, contentType);
+        if (jar == null) {
+            res.headers().set(ACCEPT_RANGES, HttpHeaders.Values.BYTES);
+        }
+        setDateAndCacheHeaders();
+        setConnectionHeader();
+    }
+
+    private void setConnectionHeader() {
+        if (isKeepAlive(request)) {
+            res.headers().set(CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+        }
+    }
+
+    private static SimpleDateFormat newDateFormatter() {
         SimpleDateFormat dateFormatter = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
         dateFormatter.setTimeZone(TimeZone.getTimeZone(HTTP_DATE_GMT_TIMEZONE));
+        return dateFormatter;
+    }
 
+    private void setDateHeaders(SimpleDateFormat dateFormatter) {
         // Date header
         Calendar time = new GregorianCalendar();
         res.headers().set(DATE, dateFormatter.format(time.getTime()));
-
-        // Add cache headers
         time.add(Calendar.SECOND, HTTP_CACHE_SECONDS);
         res.headers().set(EXPIRES, dateFormatter.format(time.getTime()));
+    }
+
+    private void setDateAndCacheHeaders() {
+        SimpleDateFormat dateFormatter = newDateFormatter();
+        setDateHeaders(dateFormatter);
+        // Add cache headers
         res.headers().set(CACHE_CONTROL, "private, max-age=" + HTTP_CACHE_SECONDS);
-        res.headers().set(
-                LAST_MODIFIED, dateFormatter.format(new Date(file.lastModified())));
+        if (lastModified >= 0) {
+            res.headers().set(LAST_MODIFIED, dateFormatter.format(new Date(lastModified)));
+        }
+        if (etag != null) {
+            res.headers().set(ETAG, etag);
+        }
     }
 
     private void sendListing() {
         StringBuilder buf = new StringBuilder();
         String dirPath = file.getPath();
+        File base = StaticFileMethod.baseUri(conf.files.public_directory);
+        try {
+            //files from the cache are canonical
+            base = base.getCanonicalFile();
+        } catch (IOException e) {
+            log.debug("", e);
+        }
         dirPath = dirPath.replace(base.getPath(), "");
         buf.append("<!DOCTYPE html>\r\n");
         buf.append("<html><head><title>");
@@ -0,0 +1,263 @@
+package io.higgs.http.server.transformers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.higgs.http.server.StreamingResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.CharsetUtil;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * A streamed response body read by the {@link io.netty.handler.stream.ChunkedWriteHandler} one chunk at a time as
+ * the channel becomes writable, so only the chunks in flight are held in memory. The last chunk is always a
+ * {@link LastHttpContent}.
+ */
+public abstract class StreamingInput implements ChunkedInput<HttpContent> {
+    private boolean sentLast;
+
+    /**
+     * @return the next part of the body, null if there's nothing to send right now or {@link #isEnded()}
+     */
+    protected abstract ByteBuf next(ByteBufAllocator alloc) throws Exception;
+
+    /**
+     * @return true once the whole body has been returned by {@link #next(ByteBufAllocator)}
+     */
+    protected abstract boolean isEnded();
+
+    /**
+     * Release whatever the source holds, called once the body's been sent or the transfer abandoned
+     */
+    protected abstract void closeSource() throws Exception;
+
+    /**
+     * Called once the input has been written to the channel
+     *
+     * @param resume resumes the transfer after {@link #next(ByteBufAllocator)} returned null because nothing was
+     *               ready, safe to call from any thread
+     */
+    public void attach(Runnable resume) {
+    }
+
+    @Override
+    public HttpContent readChunk(ChannelHandlerContext ctx) throws Exception {
+        if (sentLast) {
+            return null;
+        }
+        ByteBuf chunk = next(ctx.alloc());
+        if (chunk != null) {
+            return new DefaultHttpContent(chunk);
+        }
+        if (isEnded()) {
+            sentLast = true;
+            return LastHttpContent.EMPTY_LAST_CONTENT;
+        }
+        //suspended until ChunkedWriteHandler.resumeTransfer()
+        return null;
+    }
+
+    @Override
+    public boolean isEndOfInput() throws Exception {
+        return sentLast;
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeSource();
+    }
+
+    /**
+     * @return the chunk as a buffer, {@link CharSequence}s are encoded as UTF-8
+     * @throws IllegalArgumentException if it isn't a {@link ByteBuf}, byte[] or {@link CharSequence}
+     */
+    public static ByteBuf toBuffer(Object chunk) {
+        if (chunk instanceof ByteBuf) {
+            return (ByteBuf) chunk;
+        }
+        if (chunk instanceof byte[]) {
+            return Unpooled.wrappedBuffer((byte[]) chunk);
+        }
+        if (chunk instanceof CharSequence) {
+            return Unpooled.copiedBuffer((CharSequence) chunk, CharsetUtil.UTF_8);
+        }
+        throw new IllegalArgumentException(String.format("Can't stream a %s, expected a ByteBuf, byte[] or " +
+                "CharSequence", chunk == null ? null : chunk.getClass().getName()));
+    }
+
+    /**
+     * @return true if the chunk is written as it is rather than serialised
+     */
+    public static boolean isRaw(Object chunk) {
+        return chunk instanceof ByteBuf || chunk instanceof byte[] || chunk instanceof CharSequence;
+    }
+
+    /**
+     * Reads up to chunk size bytes from the stream at a time, the read blocks the event loop so the stream should
+     * be one which doesn't block for long e.g. a file or an in memory stream
+     */
+    public static class Stream extends StreamingInput {
+        private final InputStream in;
+        private final int chunkSize;
+        private boolean ended;
+
+        public Stream(InputStream in, int chunkSize) {
+            this.in = in;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected ByteBuf next(ByteBufAllocator alloc) throws Exception {
+            if (ended) {
+                return null;
+            }
+            ByteBuf buf = alloc.buffer(chunkSize);
+            try {
+                int read = buf.writeBytes(in, chunkSize);
+                if (read < 0) {
+                    ended = true;
+                    buf.release();
+                    return null;
+                }
+                if (read == 0) {
+                    //nothing available but not the end, send an empty chunk and keep going
+                    buf.release();
+                    return Unpooled.EMPTY_BUFFER;
+                }
+                return buf;
+            } catch (Exception e) {
+                buf.release();
+                throw e;
+            }
+        }
+
+        @Override
+        protected boolean isEnded() {
+            return ended;
+        }
+
+        @Override
+        protected void closeSource() throws Exception {
+            in.close();
+        }
+    }
+
+    /**
+     * Sends each element of an iterator. If the elements are {@link ByteBuf}s, byte[]s or {@link CharSequence}s
+     * they're sent as they are, otherwise the iterator is sent as a JSON array, one element per chunk
+     */
+    public static class Elements extends StreamingInput {
+        private static final Object END = new Object();
+        private static final Object TAKEN = new Object();
+        private static final byte[] OPEN = {'['};
+        private static final byte[] SEPARATOR = {','};
+        private static final byte[] CLOSE = {']'};
+        private static final byte[] EMPTY_ARRAY = {'[', ']'};
+        private final Iterator<?> it;
+        private final ObjectMapper mapper;
+        private final boolean json;
+        //taken up front to decide how the elements are sent
+        private Object first;
+        private boolean wroteAny;
+        private boolean ended;
+
+        /**
+         * @param mapper used to serialise elements which aren't raw
+         * @param json   true to send an empty iterator as an empty JSON array
+         */
+        public Elements(Iterator<?> it, ObjectMapper mapper, boolean json) {
+            this.it = it;
+            this.mapper = mapper;
+            first = it.hasNext() ? it.next() : END;
+            this.json = first == END ? json : !isRaw(first);
+        }
+
+        /**
+         * @return true if the elements are sent as a JSON array
+         */
+        public boolean isJson() {
+            return json;
+        }
+
+        @Override
+        protected ByteBuf next(ByteBufAllocator alloc) throws Exception {
+            if (ended) {
+                return null;
+            }
+            Object element;
+            if (first != TAKEN) {
+                element = first;
+                first = TAKEN;
+            } else {
+                element = it.hasNext() ? it.next() : END;
+            }
+            if (element == END) {
+                ended = true;
+                return json ? Unpooled.wrappedBuffer(wroteAny ? CLOSE : EMPTY_ARRAY) : null;
+            }
+            if (!json) {
+                //nulls have no raw form, skip them
+                return element == null ? Unpooled.EMPTY_BUFFER : toBuffer(element);
+            }
+            byte[] prefix = wroteAny ? SEPARATOR : OPEN;
+            wroteAny = true;
+            return Unpooled.wrappedBuffer(prefix, mapper.writeValueAsBytes(element));
+        }
+
+        @Override
+        protected boolean isEnded() {
+            return ended;
+        }
+
+        @Override
+        protected void closeSource() throws Exception {
+            if (it instanceof Closeable) {
+                ((Closeable) it).close();
+            }
+        }
+    }
+
+    /**
+     * Sends the chunks written to a {@link StreamingResponse}, the transfer is suspended while none are waiting
+     * and resumed as they're written
+     */
+    public static class Pushed extends StreamingInput {
+        private final StreamingResponse source;
+
+        public Pushed(StreamingResponse source) {
+            this.source = source;
+        }
+
+        @Override
+        public void attach(Runnable resume) {
+            source.setResume(resume);
+        }
+
+        @Override
+        protected ByteBuf next(ByteBufAllocator alloc) throws Exception {
+            if (source.getFailure() != null) {
+                throw new IllegalStateException("Streaming response failed", source.getFailure());
+            }
+            Object chunk = source.poll();
+            return chunk == null ? null : toBuffer(chunk);
+        }
+
+        @Override
+        protected boolean isEnded() {
+            return source.isEnded();
+        }
+
+        @Override
+        protected void closeSource() throws Exception {
+            source.close();
+        }
+    }
+}
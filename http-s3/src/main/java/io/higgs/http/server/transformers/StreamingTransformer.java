@@ -0,0 +1,84 @@
+package io.higgs.http.server.transformers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.higgs.http.server.HttpRequest;
+import io.higgs.http.server.HttpResponse;
+import io.higgs.http.server.StreamingResponse;
+import io.higgs.http.server.config.HttpConfig;
+import io.higgs.http.server.protocol.HttpMethod;
+import io.higgs.http.server.resource.MediaType;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Streams responses which are an {@link Iterator}, {@link InputStream} or {@link StreamingResponse} instead of
+ * building the whole body in memory first, see {@link StreamingWriter}.
+ * Iterators of anything other than {@link io.netty.buffer.ByteBuf}s, byte[]s or {@link CharSequence}s are sent as
+ * a JSON array, one element at a time. Methods with a template are left to Thymeleaf, which can iterate them.
+ */
+public class StreamingTransformer extends BaseTransformer {
+    private final HttpConfig conf;
+    private final ObjectMapper mapper;
+
+    public StreamingTransformer(HttpConfig conf) {
+        this.conf = conf;
+        mapper = new JsonTransformer().mapper;
+    }
+
+    @Override
+    public boolean canTransform(Object response, HttpRequest request, MediaType mediaType, HttpMethod method,
+                                ChannelHandlerContext ctx) {
+        return !method.hasTemplate() && (response instanceof Iterator || response instanceof InputStream
+                || response instanceof StreamingResponse);
+    }
+
+    @Override
+    public void transform(Object response, HttpRequest request, HttpResponse res, MediaType mediaType,
+                          HttpMethod method, ChannelHandlerContext ctx) {
+        StreamingInput input;
+        String contentType = contentType(mediaType);
+        if (response instanceof InputStream) {
+            input = new StreamingInput.Stream((InputStream) response, conf.stream_chunk_size);
+        } else if (response instanceof StreamingResponse) {
+            input = new StreamingInput.Pushed((StreamingResponse) response);
+        } else {
+            StreamingInput.Elements elements = new StreamingInput.Elements((Iterator<?>) response, mapper,
+                    acceptsJson(request));
+            if (elements.isJson()) {
+                contentType = MediaType.APPLICATION_JSON;
+            }
+            input = elements;
+        }
+        res.setManagedWriter(new StreamingWriter(ctx, request, res, input,
+                contentType == null ? MediaType.APPLICATION_OCTET_STREAM : contentType));
+    }
+
+    private String contentType(MediaType mediaType) {
+        if (mediaType == null || mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+            return null;
+        }
+        return mediaType.toString();
+    }
+
+    private boolean acceptsJson(HttpRequest request) {
+        for (MediaType type : request.getMediaTypes()) {
+            if (type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public ResponseTransformer instance() {
+        return this;
+    }
+
+    @Override
+    public int priority() {
+        //before Thymeleaf and JSON so streamed responses are never buffered
+        return 2;
+    }
+}
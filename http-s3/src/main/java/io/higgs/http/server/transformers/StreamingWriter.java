@@ -0,0 +1,95 @@
+package io.higgs.http.server.transformers;
+
+import io.higgs.http.server.HttpRequest;
+import io.higgs.http.server.HttpResponse;
+import io.higgs.http.server.ManagedWriter;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaders.isKeepAlive;
+
+/**
+ * Writes a {@link StreamingInput} with chunked transfer encoding. The {@link ChunkedWriteHandler} in the pipeline
+ * only reads the next chunk while {@link io.netty.channel.Channel#isWritable()} and picks up again when the
+ * channel's writability changes, so a slow client holds up the source instead of the server buffering the body.
+ * <p/>
+ * HTTP/1.0 clients don't understand chunked encoding, for them the body ends when the connection is closed.
+ */
+public class StreamingWriter implements ManagedWriter {
+    private static final Logger log = LoggerFactory.getLogger(StreamingWriter.class);
+    private final ChannelHandlerContext ctx;
+    private final HttpRequest request;
+    private final HttpResponse prepared;
+    private final StreamingInput input;
+    private final String contentType;
+    private volatile boolean done;
+
+    /**
+     * @param prepared    the response whose status and headers e.g. cookies are sent, its content is ignored
+     * @param contentType sent if the response doesn't already have a Content-Type, may be null
+     */
+    public StreamingWriter(ChannelHandlerContext ctx, HttpRequest request, HttpResponse prepared,
+                           StreamingInput input, String contentType) {
+        this.ctx = ctx;
+        this.request = request;
+        this.prepared = prepared;
+        this.input = input;
+        this.contentType = contentType;
+    }
+
+    @Override
+    public ChannelFuture doWrite() {
+        final ChunkedWriteHandler chunkedWriter = ctx.pipeline().get(ChunkedWriteHandler.class);
+        if (chunkedWriter == null) {
+            throw new IllegalStateException("Streaming responses need a ChunkedWriteHandler in the pipeline");
+        }
+        DefaultHttpResponse res = new DefaultHttpResponse(prepared.getProtocolVersion(), prepared.getStatus());
+        res.headers().set(prepared.headers());
+        res.headers().remove(CONTENT_LENGTH);
+        if (contentType != null && !res.headers().contains(CONTENT_TYPE)) {
+            res.headers().set(CONTENT_TYPE, contentType);
+        }
+        final boolean keepAlive = isKeepAlive(request) && !HttpVersion.HTTP_1_0.equals(request.getProtocolVersion());
+        if (keepAlive) {
+            HttpHeaders.setTransferEncodingChunked(res);
+        } else {
+            HttpHeaders.setKeepAlive(res, false);
+        }
+        ctx.write(res);
+        ChannelFuture future = ctx.writeAndFlush(input);
+        future.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                done = true;
+                if (!future.isSuccess()) {
+                    //the status has been sent, the only way to tell the client the body is incomplete
+                    log.warn(String.format("Streaming response to %s failed", request.getUri()), future.cause());
+                    future.channel().close();
+                } else if (!keepAlive) {
+                    future.channel().close();
+                }
+            }
+        });
+        input.attach(new Runnable() {
+            @Override
+            public void run() {
+                chunkedWriter.resumeTransfer();
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+}
@@ -9,6 +9,8 @@ import io.higgs.http.server.protocol.HttpMethod;
 import io.higgs.http.server.resource.MediaType;
 import io.higgs.http.server.transformers.thymeleaf.Thymeleaf;
 import io.higgs.http.server.transformers.thymeleaf.WebContext;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
@@ -16,13 +18,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.thymeleaf.TemplateEngine;
 
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * See {@link io.higgs.http.server.resource.template#value()} for a list of types that will be injected by default
@@ -30,13 +37,19 @@ import java.util.Set;
  * @author Courtney Robinson <courtney@crlog.info>
  */
 public class ThymeleafTransformer extends BaseTransformer {
+    /**
+     * The fields of each POJO class rendered so far which become template variables, already made accessible
+     */
+    private static final ConcurrentHashMap<Class<?>, Field[]> contextFields = new ConcurrentHashMap<>();
     protected TemplateConfig config;
     protected Thymeleaf tl;
     private Logger log = LoggerFactory.getLogger(getClass());
+    private final Charset charset;
 
     public ThymeleafTransformer(TemplateConfig config, boolean ignoreConfigPrefixAndSuffix) {
         this.config = config;
         tl = new Thymeleaf(this.config, ignoreConfigPrefixAndSuffix);
+        charset = Charset.forName(config.character_encoding);
     }
 
     public ThymeleafTransformer(TemplateConfig template_config) {
@@ -85,7 +98,8 @@ public class ThymeleafTransformer extends BaseTransformer {
     public void transform(WebContext webContext, String templateName, Object response, HttpRequest request,
                           HttpResponse res, MediaType mediaType, HttpMethod method,
                           ChannelHandlerContext ctx, HttpResponseStatus status) {
-        byte[] data = null;
+        ByteBuf content = res.content();
+        int start = content.writerIndex();
         try {
             if (request != null) {
                 if (config.determine_language_from_accept_header) {
@@ -98,18 +112,20 @@ public class ThymeleafTransformer extends BaseTransformer {
                 }
                 populateContext(webContext, response, request, method);
             }
-            String content = tl.getTemplateEngine().process(templateName, webContext);
-            data = content.getBytes(Charset.forName(config.character_encoding));
+            //encoded into the response's buffer as it's rendered rather than built up as a String and copied
+            Writer writer = new OutputStreamWriter(new ByteBufOutputStream(content), charset);
+            tl.getTemplateEngine().process(templateName, webContext, writer);
+            writer.flush();
         } catch (Throwable e) {
             log.warn("Unable to transform response to HTML using Thymeleaf transformer", e);
+            //drop whatever was rendered before it failed
+            content.writerIndex(start);
             //todo use template to generate 500
             res.setStatus(HttpStatus.INTERNAL_SERVER_ERROR);
+            return;
         }
-        if (data != null) {
-            res.setStatus(status == null ? HttpStatus.OK : status);
-            res.content().writeBytes(data);
-            HttpHeaders.setContentLength(res, data.length);
-        }
+        res.setStatus(status == null ? HttpStatus.OK : status);
+        HttpHeaders.setContentLength(res, content.readableBytes());
     }
 
     private void populateContext(final WebContext ctx, Object response, HttpRequest request, HttpMethod method) {
@@ -137,11 +153,8 @@ public class ThymeleafTransformer extends BaseTransformer {
             } else {
                 //it must be a POJO otherwise (since its not a primitive or a Map,List or Set...)
                 if (config.convert_pojo_responses_to_key_value_pairs) {
-                    //get fields going a max of 10 parent classes up in the chain
-                    Set<Field> fields = ReflectionUtil.getAllFields(new HashSet<Field>(), response.getClass(), 10);
-                    for (Field field : fields) {
+                    for (Field field : contextFields(response.getClass())) {
                         try {
-                            field.setAccessible(true);
                             ctx.setVariable(field.getName(), field.get(response));
                         } catch (IllegalAccessException e) {
                             log.warn(String.format("Unable to set template variable %s", field.getName()), e);
@@ -152,6 +165,32 @@ public class ThymeleafTransformer extends BaseTransformer {
         }
     }
 
+    /**
+     * @return the fields of the class which become template variables, looked up once per class
+     */
+    private Field[] contextFields(Class<?> klass) {
+        Field[] fields = contextFields.get(klass);
+        if (fields == null) {
+            //get fields going a max of 10 parent classes up in the chain
+            Set<Field> all = ReflectionUtil.getAllFields(new HashSet<Field>(), klass, 10);
+            List<Field> accessible = new ArrayList<>(all.size());
+            for (Field field : all) {
+                try {
+                    field.setAccessible(true);
+                    accessible.add(field);
+                } catch (SecurityException e) {
+                    log.warn(String.format("Unable to use field %s as a template variable", field.getName()), e);
+                }
+            }
+            fields = accessible.toArray(new Field[accessible.size()]);
+            Field[] existing = contextFields.putIfAbsent(klass, fields);
+            if (existing != null) {
+                fields = existing;
+            }
+        }
+        return fields;
+    }
+
     public TemplateConfig getConfig() {
         return config;
     }
@@ -0,0 +1,63 @@
+package io.higgs.http.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AcceptEncodingTest {
+    private static final float DELTA = 0.0001f;
+
+    @Test
+    public void noHeaderAcceptsNothing() {
+        assertEquals(0, AcceptEncoding.quality(null, "gzip"), DELTA);
+    }
+
+    @Test
+    public void listedCodingDefaultsToQualityOne() {
+        assertEquals(1, AcceptEncoding.quality("deflate, gzip", "gzip"), DELTA);
+    }
+
+    @Test
+    public void qualityIsRead() {
+        assertEquals(0.5f, AcceptEncoding.quality("gzip;q=0.5", "gzip"), DELTA);
+        assertEquals(0.8f, AcceptEncoding.quality("br, gzip ; q=0.8", "gzip"), DELTA);
+    }
+
+    @Test
+    public void codingsAreCaseInsensitive() {
+        assertEquals(1, AcceptEncoding.quality("GZIP", "gzip"), DELTA);
+    }
+
+    @Test
+    public void unlistedCodingIsNotAcceptable() {
+        assertEquals(0, AcceptEncoding.quality("deflate", "gzip"), DELTA);
+    }
+
+    @Test
+    public void qZeroIsNotAcceptable() {
+        assertEquals(0, AcceptEncoding.quality("gzip;q=0", "gzip"), DELTA);
+    }
+
+    @Test
+    public void starCoversUnlistedCodings() {
+        assertEquals(1, AcceptEncoding.quality("*", "br"), DELTA);
+        assertEquals(0.3f, AcceptEncoding.quality("deflate, *;q=0.3", "br"), DELTA);
+    }
+
+    @Test
+    public void listedCodingOverridesStar() {
+        assertEquals(0, AcceptEncoding.quality("gzip;q=0, *", "gzip"), DELTA);
+        assertEquals(0, AcceptEncoding.quality("*, gzip;q=0", "gzip"), DELTA);
+        assertEquals(1, AcceptEncoding.quality("br, *;q=0", "br"), DELTA);
+    }
+
+    @Test
+    public void starWithQZeroRejectsUnlistedCodings() {
+        assertEquals(0, AcceptEncoding.quality("br, *;q=0", "gzip"), DELTA);
+    }
+
+    @Test
+    public void invalidQualityIsNotAcceptable() {
+        assertEquals(0, AcceptEncoding.quality("gzip;q=abc", "gzip"), DELTA);
+    }
+}
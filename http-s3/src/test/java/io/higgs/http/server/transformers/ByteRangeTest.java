@@ -0,0 +1,133 @@
+package io.higgs.http.server.transformers;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByteRangeTest {
+    private static final long SIZE = 1000;
+
+    private static void assertRanges(List<ByteRange> ranges, String... expected) {
+        assertEquals(expected.length, ranges.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], ranges.get(i).toString());
+        }
+    }
+
+    @Test
+    public void parsesASingleRange() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=0-499", SIZE);
+        assertRanges(ranges, "0-499");
+        assertEquals(500, ranges.get(0).length());
+        assertEquals("bytes 0-499/1000", ranges.get(0).contentRange(SIZE));
+    }
+
+    @Test
+    public void openEndedRangeRunsToTheEndOfTheFile() {
+        assertRanges(ByteRange.parse("bytes=500-", SIZE), "500-999");
+    }
+
+    @Test
+    public void lastPositionPastTheEndIsClamped() {
+        assertRanges(ByteRange.parse("bytes=900-2000", SIZE), "900-999");
+    }
+
+    @Test
+    public void suffixRangeIsTheLastBytes() {
+        assertRanges(ByteRange.parse("bytes=-200", SIZE), "800-999");
+    }
+
+    @Test
+    public void suffixLongerThanTheFileIsTheWholeFile() {
+        assertRanges(ByteRange.parse("bytes=-5000", SIZE), "0-999");
+    }
+
+    @Test
+    public void emptySuffixIsNotSatisfiable() {
+        assertTrue(ByteRange.parse("bytes=-0", SIZE).isEmpty());
+    }
+
+    @Test
+    public void rangeStartingAtOrPastTheEndIsNotSatisfiable() {
+        assertTrue(ByteRange.parse("bytes=1000-1100", SIZE).isEmpty());
+        assertTrue(ByteRange.parse("bytes=0-", 0).isEmpty());
+    }
+
+    @Test
+    public void unsatisfiableRangesAreDroppedWhenOthersAreSatisfiable() {
+        assertRanges(ByteRange.parse("bytes=2000-,0-9", SIZE), "0-9");
+    }
+
+    @Test
+    public void unitAndSpecAreCaseAndWhitespaceTolerant() {
+        assertRanges(ByteRange.parse(" Bytes= 0-1 , 4-5 ", SIZE), "0-1", "4-5");
+    }
+
+    @Test
+    public void invalidHeadersAreIgnored() {
+        assertNull(ByteRange.parse("items=0-1", SIZE));
+        assertNull(ByteRange.parse("bytes=abc", SIZE));
+        assertNull(ByteRange.parse("bytes=5-1", SIZE));
+        assertNull(ByteRange.parse("bytes=x-5", SIZE));
+        assertNull(ByteRange.parse("bytes=-", SIZE));
+        assertNull(ByteRange.parse("bytes=0-1,oops", SIZE));
+    }
+
+    @Test
+    public void overlappingRangesAreMerged() {
+        assertRanges(ByteRange.parse("bytes=0-99,50-149", SIZE), "0-149");
+        assertRanges(ByteRange.parse("bytes=0-999,10-20", SIZE), "0-999");
+    }
+
+    @Test
+    public void adjacentRangesAreMerged() {
+        assertRanges(ByteRange.parse("bytes=0-99,100-199", SIZE), "0-199");
+    }
+
+    @Test
+    public void rangesAreSorted() {
+        assertRanges(ByteRange.parse("bytes=500-599,0-99,-100", SIZE), "0-99", "500-599", "900-999");
+    }
+
+    @Test
+    public void upToMaxRangesAreAccepted() {
+        assertEquals(ByteRange.MAX_RANGES, ByteRange.parse(ranges(ByteRange.MAX_RANGES), SIZE).size());
+    }
+
+    @Test
+    public void moreThanMaxRangesSendsTheWholeFile() {
+        assertNull(ByteRange.parse(ranges(ByteRange.MAX_RANGES + 1), SIZE));
+    }
+
+    @Test
+    public void moreThanMaxRangesIsCountedBeforeMerging() {
+        StringBuilder header = new StringBuilder("bytes=0-1");
+        for (int i = 0; i < ByteRange.MAX_RANGES; i++) {
+            header.append(",0-1");
+        }
+        assertNull(ByteRange.parse(header.toString(), SIZE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeCantEndBeforeItStarts() {
+        new ByteRange(10, 9);
+    }
+
+    /**
+     * @return a header with n disjoint, single byte ranges
+     */
+    private static String ranges(int n) {
+        StringBuilder header = new StringBuilder("bytes=");
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                header.append(',');
+            }
+            header.append(i * 2).append('-').append(i * 2);
+        }
+        return header.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package io.higgs.http.server.transformers;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StaticFileWriterTest {
+    private static final String STRONG = "\"abc\"";
+    private static final String WEAK = "W/\"abc\"";
+    //Thu, 01 Jan 2015 00:00:00 GMT plus some milliseconds, which HTTP dates can't carry
+    private static final long MODIFIED = 1420070400000L + 123;
+
+    private static String httpDate(long time) {
+        SimpleDateFormat format = new SimpleDateFormat(StaticFileWriter.HTTP_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone(StaticFileWriter.HTTP_DATE_GMT_TIMEZONE));
+        return format.format(new Date(time));
+    }
+
+    @Test
+    public void anyTagMatchesStar() {
+        assertTrue(StaticFileWriter.etagMatches("*", STRONG));
+        assertTrue(StaticFileWriter.etagMatches(" * ", WEAK));
+    }
+
+    @Test
+    public void ifNoneMatchUsesWeakComparison() {
+        assertTrue(StaticFileWriter.etagMatches(STRONG, STRONG));
+        assertTrue(StaticFileWriter.etagMatches(WEAK, STRONG));
+        assertTrue(StaticFileWriter.etagMatches(STRONG, WEAK));
+        assertTrue(StaticFileWriter.etagMatches(WEAK, WEAK));
+    }
+
+    @Test
+    public void anyTagInTheListCanMatch() {
+        assertTrue(StaticFileWriter.etagMatches("\"x\", W/\"y\" ,\"abc\"", STRONG));
+        assertFalse(StaticFileWriter.etagMatches("\"x\", W/\"y\"", STRONG));
+    }
+
+    @Test
+    public void tagsAreComparedWithTheirQuotes() {
+        assertFalse(StaticFileWriter.etagMatches("abc", STRONG));
+        assertFalse(StaticFileWriter.etagMatches("\"ab\"", STRONG));
+    }
+
+    @Test
+    public void noIfRangeMatches() {
+        assertTrue(StaticFileWriter.ifRangeMatches(null, STRONG, MODIFIED));
+    }
+
+    @Test
+    public void ifRangeTagUsesStrongComparison() {
+        assertTrue(StaticFileWriter.ifRangeMatches(STRONG, STRONG, MODIFIED));
+        assertTrue(StaticFileWriter.ifRangeMatches(" " + STRONG + " ", STRONG, MODIFIED));
+        assertFalse(StaticFileWriter.ifRangeMatches(WEAK, WEAK, MODIFIED));
+        assertFalse(StaticFileWriter.ifRangeMatches(WEAK, STRONG, MODIFIED));
+        assertFalse(StaticFileWriter.ifRangeMatches(STRONG, WEAK, MODIFIED));
+        assertFalse(StaticFileWriter.ifRangeMatches("\"other\"", STRONG, MODIFIED));
+        assertFalse(StaticFileWriter.ifRangeMatches(STRONG, null, MODIFIED));
+    }
+
+    @Test
+    public void ifRangeDateMustBeTheModifiedTimeToTheSecond() {
+        assertTrue(StaticFileWriter.ifRangeMatches(httpDate(MODIFIED), STRONG, MODIFIED));
+        assertFalse(StaticFileWriter.ifRangeMatches(httpDate(MODIFIED - 1000), STRONG, MODIFIED));
+        assertFalse(StaticFileWriter.ifRangeMatches(httpDate(MODIFIED + 1000), STRONG, MODIFIED));
+    }
+
+    @Test
+    public void ifRangeDateNeverMatchesAnUnknownModifiedTime() {
+        assertFalse(StaticFileWriter.ifRangeMatches(httpDate(0), STRONG, 0));
+    }
+
+    @Test
+    public void invalidIfRangeDateDoesntMatch() {
+        assertFalse(StaticFileWriter.ifRangeMatches("yesterday", STRONG, MODIFIED));
+    }
+}
@@ -0,0 +1,273 @@
+package io.higgs.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Writes {@link #MANIFEST} listing every class which has the io.higgs.core.method annotation, on the class or
+ * on any of its public methods (including inherited ones), and every concrete io.higgs.core.ObjectFactory.
+ * HiggsServer.registerFromManifest() reads it at start up instead of scanning the class path.
+ * <p/>
+ * The manifest is a UTF-8 text file with one tab separated entry per line, lines starting with # are comments.
+ * <pre>
+ * class    &lt;binary class name&gt;    &lt;class level method value&gt;
+ * method   &lt;binary class name&gt;    &lt;method name&gt;    &lt;param types&gt;    &lt;method value&gt;
+ *          &lt;verbs&gt;    &lt;params&gt;
+ * factory  &lt;binary class name&gt;
+ * </pre>
+ * A method entry is a single line, it's only wrapped here. Param types and verbs are comma separated, params has
+ * one group of comma separated annotations per parameter, groups separated by ; and each annotation written as
+ * SimpleName or SimpleName(value).
+ * <p/>
+ * Only the classes being compiled are visible to a processor so on an incremental build the entries of an
+ * existing manifest are kept for any class which still exists but wasn't compiled this time.
+ */
+@SupportedAnnotationTypes("*")
+public class RouteManifestProcessor extends AbstractProcessor {
+    public static final String MANIFEST = "META-INF/higgs/routes";
+    public static final String METHOD = "io.higgs.core.method";
+    public static final String OBJECT_FACTORY = "io.higgs.core.ObjectFactory";
+    public static final String VERB_PACKAGE = "io.higgs.http.server.resource";
+    protected static final Set<String> VERBS = new HashSet<>(Arrays.asList("GET", "POST", "PUT", "DELETE", "HEAD",
+            "OPTIONS", "PATCH", "TRACE"));
+    protected static final Charset UTF8 = Charset.forName("UTF-8");
+    /**
+     * Manifest lines for each class found, keyed and therefore written in order of class name
+     */
+    protected final Map<String, List<String>> entries = new TreeMap<>();
+    protected final Set<String> seen = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        if (round.processingOver()) {
+            write();
+        } else {
+            for (TypeElement type : ElementFilter.typesIn(round.getRootElements())) {
+                visit(type);
+            }
+        }
+        //never claim annotations, other processors may want them
+        return false;
+    }
+
+    protected void visit(TypeElement type) {
+        Elements elements = processingEnv.getElementUtils();
+        String name = elements.getBinaryName(type).toString();
+        seen.add(name);
+        if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT)) {
+            List<String> lines = describe(type, name);
+            if (!lines.isEmpty()) {
+                entries.put(name, lines);
+            }
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            visit(nested);
+        }
+    }
+
+    protected List<String> describe(TypeElement type, String name) {
+        List<String> lines = new ArrayList<>();
+        if (isFactory(type)) {
+            lines.add("factory\t" + name);
+        }
+        AnnotationMirror classMethod = find(type, METHOD);
+        List<String> methods = new ArrayList<>();
+        Elements elements = processingEnv.getElementUtils();
+        for (ExecutableElement m : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            AnnotationMirror am = find(m, METHOD);
+            //only public methods are registered, see Class.getMethods()
+            if (am == null || !m.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            methods.add(describe(name, m, am));
+        }
+        if (classMethod != null || !methods.isEmpty()) {
+            lines.add("class\t" + name + "\t" + value(classMethod));
+            lines.addAll(methods);
+        }
+        return lines;
+    }
+
+    protected String describe(String klass, ExecutableElement m, AnnotationMirror am) {
+        Types types = processingEnv.getTypeUtils();
+        StringBuilder paramTypes = new StringBuilder();
+        StringBuilder params = new StringBuilder();
+        List<? extends VariableElement> parameters = m.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement p = parameters.get(i);
+            if (i > 0) {
+                paramTypes.append(',');
+                params.append(';');
+            }
+            paramTypes.append(typeName(types.erasure(p.asType())));
+            boolean first = true;
+            for (AnnotationMirror pa : p.getAnnotationMirrors()) {
+                if (!first) {
+                    params.append(',');
+                }
+                first = false;
+                params.append(pa.getAnnotationType().asElement().getSimpleName());
+                //param values are nested in the params field so can't contain its separators
+                String v = value(pa).replaceAll("[;,()]", " ");
+                if (!v.isEmpty()) {
+                    params.append('(').append(v).append(')');
+                }
+            }
+        }
+        StringBuilder verbs = new StringBuilder();
+        for (AnnotationMirror a : m.getAnnotationMirrors()) {
+            TypeElement at = (TypeElement) a.getAnnotationType().asElement();
+            String simpleName = at.getSimpleName().toString();
+            if (VERBS.contains(simpleName) && at.getQualifiedName().toString().startsWith(VERB_PACKAGE)) {
+                if (verbs.length() > 0) {
+                    verbs.append(',');
+                }
+                verbs.append(simpleName);
+            }
+        }
+        return "method\t" + klass + "\t" + m.getSimpleName() + "\t" + paramTypes + "\t" + value(am) + "\t"
+                + verbs + "\t" + params;
+    }
+
+    /**
+     * @return the name {@link Class#forName(String)} expects, arrays are written in source form e.g. int[]
+     */
+    protected String typeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement e = (TypeElement) ((DeclaredType) type).asElement();
+            return processingEnv.getElementUtils().getBinaryName(e).toString();
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) type).getComponentType()) + "[]";
+        }
+        return type.toString();
+    }
+
+    protected boolean isFactory(TypeElement type) {
+        TypeMirror parent = type.getSuperclass();
+        while (parent.getKind() == TypeKind.DECLARED) {
+            TypeElement e = (TypeElement) ((DeclaredType) parent).asElement();
+            if (e.getQualifiedName().contentEquals(OBJECT_FACTORY)) {
+                return true;
+            }
+            parent = e.getSuperclass();
+        }
+        return false;
+    }
+
+    protected AnnotationMirror find(Element e, String annotation) {
+        for (AnnotationMirror a : e.getAnnotationMirrors()) {
+            if (((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+                return a;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the explicitly set value() of the annotation or an empty string, tabs and new lines are replaced
+     */
+    protected String value(AnnotationMirror a) {
+        if (a == null) {
+            return "";
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : a.getElementValues().entrySet()) {
+            if (e.getKey().getSimpleName().contentEquals("value")) {
+                Object v = e.getValue().getValue();
+                return v == null ? "" : v.toString().replaceAll("[\t\r\n]", " ");
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Adds the entries of an existing manifest for classes not compiled in this build but which still exist
+     */
+    protected void mergePrevious() {
+        try {
+            FileObject previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", MANIFEST);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(previous.openInputStream(),
+                    UTF8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t");
+                    if (line.startsWith("#") || parts.length < 2 || seen.contains(parts[1])) {
+                        continue;
+                    }
+                    if (processingEnv.getElementUtils().getTypeElement(parts[1].replace('$', '.')) == null) {
+                        continue;
+                    }
+                    List<String> lines = entries.get(parts[1]);
+                    if (lines == null) {
+                        lines = new ArrayList<>();
+                        entries.put(parts[1], lines);
+                    }
+                    lines.add(line);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            //no previous manifest, a full build
+        }
+    }
+
+    protected void write() {
+        mergePrevious();
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", MANIFEST);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), UTF8)) {
+                writer.write("# Generated by " + getClass().getName() + ", do not edit\n");
+                for (List<String> lines : entries.values()) {
+                    for (String line : lines) {
+                        writer.write(line);
+                        writer.write('\n');
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    String.format("Unable to write %s, classes will be found by scanning the class path. %s",
+                            MANIFEST, e.getMessage()));
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * An event handler which converts JSON events into method invocations
@@ -91,11 +92,33 @@ public class DefaultWebSocketEventHandler implements WebSocketEventHandler {
             }
         };
         injectParams(params, method, request, frame, handler, ctx, config, method, pusher);
+        final Object[] args = params;
+        final MessagePusher p = pusher;
         try {
-            Object returns = method.invoke(ctx, request.getPath(), request, params);
-            pusher.push(returns);
-        } catch (InvocationTargetException | IllegalAccessException | InstantiationException e) {
-            log.warn(String.format("Crap! Unable to invoke method %s", method), e);
+            handler.getExecutor().execute(method, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final Object returns = method.invoke(ctx, request.getPath(), request, args);
+                        //the method may have run on a worker thread, always respond from the event loop
+                        if (ctx.executor().inEventLoop()) {
+                            p.push(returns);
+                        } else {
+                            ctx.executor().execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    p.push(returns);
+                                }
+                            });
+                        }
+                    } catch (InvocationTargetException | IllegalAccessException | InstantiationException e) {
+                        log.warn(String.format("Crap! Unable to invoke method %s", method), e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn(String.format("Too many events waiting to be processed, dropping event for %s",
+                    request.getPath()));
         }
     }
 
@@ -15,6 +15,7 @@ import io.netty.handler.stream.ChunkedWriteHandler;
  * @author Courtney Robinson <courtney@crlog.info>
  */
 public class WebSocketDetector extends HttpDetector {
+    private static final byte[][] PREFIXES = prefixes("GE");
     protected final WebSocketConfiguration config;
 
     public WebSocketDetector(WebSocketConfiguration config) {
@@ -22,8 +23,16 @@ public class WebSocketDetector extends HttpDetector {
         this.config = config;
     }
 
+    @Override
+    public byte[][] prefixes() {
+        return PREFIXES;
+    }
+
     @Override
     public boolean detected(ChannelHandlerContext ctx, ByteBuf in) {
+        if (in.readableBytes() < 2) {
+            return false;
+        }
         final int magic1 = in.getUnsignedByte(in.readerIndex());
         final int magic2 = in.getUnsignedByte(in.readerIndex() + 1);
         return magic1 == 'G' && magic2 == 'E'; //GET request